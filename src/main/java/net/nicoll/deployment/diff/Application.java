@@ -1,124 +1,243 @@
 package net.nicoll.deployment.diff;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import net.nicoll.deployment.diff.DiffUtils.Diff;
+import net.nicoll.deployment.diff.ReleaseHistory.VersionPair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.maven.model.Dependency;
 
+import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.annotation.Bean;
+import org.springframework.util.unit.DataSize;
 
 @SpringBootApplication
 public class Application {
 
 	private static final Log logger = LogFactory.getLog(Application.class);
 
+	private static final List<String> COORDINATOR_OPTIONS = List.of("coordinator", "workers", "port", "shards",
+			"shard-timeout", "max-read-rate");
+
 	public static void main(String[] args) {
-		SpringApplication.run(Application.class, args);
+		try {
+			SpringApplication.run(Application.class, args);
+		}
+		finally {
+			ArchivePool.shared().close();
+		}
 	}
 
 	@Bean
 	ApplicationRunner run() {
 		return args -> {
 			List<String> options = args.getNonOptionArgs();
+			ArchivePool.configure(Integer.parseInt(optionValue(args, "max-open-archives", "64")),
+					DataSize.parse(optionValue(args, "max-read-rate", "0")).toBytes());
+			if (args.containsOption("history") || args.containsOption("pairs")) {
+				if (options.size() != 1) {
+					throw new IllegalArgumentException(
+							"Usage: <directory> --history=<version>,<version>... | --pairs=<from>:<to>,..., got "
+									+ options.size());
+				}
+				List<VersionPair> pairs = args.containsOption("pairs")
+						? Arrays.stream(optionValue(args, "pairs", null).split(",")).map(VersionPair::parse).toList()
+						: ReleaseHistory.consecutivePairs(List.of(optionValue(args, "history", null).split(",")));
+				Path root = Paths.get(options.get(0));
+				String groupId = "org.springframework.ws";
+				try (ModuleRepository repository = ModuleRepository.of(root,
+						root.resolve(groupId.replace('.', '/')), groupId)) {
+					new ReleaseHistory(repository, pairs).diff();
+				}
+				return;
+			}
+			ArtifactTriage triage = args.containsOption("triage")
+					? ArtifactTriage.of(Double.parseDouble(optionValue(args, "triage", "0.000001")))
+					: ArtifactTriage.none();
+			if (args.containsOption("serve")) {
+				int port = Integer.parseInt(optionValue(args, "port", "8080"));
+				int workers = Integer.parseInt(optionValue(args, "workers", "2"));
+				int queueCapacity = Integer.parseInt(optionValue(args, "queue-capacity", "16"));
+				int cacheSize = Integer.parseInt(optionValue(args, "cache-size", "64"));
+				List<Path> roots = Arrays.stream(optionValue(args, "roots", null).split(",")).map(Paths::get).toList();
+				new DiffServer(deployment -> configure(deployment).setArtifactTriage(triage), roots, workers,
+						queueCapacity, cacheSize)
+					.run(optionValue(args, "bind", "127.0.0.1"), port);
+				return;
+			}
+			if (args.containsOption("export")) {
+				if (options.size() != 2) {
+					throw new IllegalArgumentException(
+							"Usage: <directory> <version> --export=<snapshot>, got " + options.size());
+				}
+				Path directory = Paths.get(options.get(0));
+				String version = options.get(1);
+				Deployment deployment = new Deployment("Export", directory, "Export", directory, version);
+				try (GroupDeployment groupDeployment = deployment.resolveGroupId(true, "org.springframework.ws")) {
+					RepositorySnapshot.export(groupDeployment.leftRepository(), groupDeployment.groupId(), version,
+							Paths.get(optionValue(args, "export", null)));
+				}
+				return;
+			}
 			if (options.size() != 3) {
 				throw new IllegalArgumentException(
-						"Usage: <leftDirectory> <rightDirectory> <version>, got " + options.size());
+						"Usage: <leftDirectory|snapshot> <rightDirectory|snapshot> <version>, got " + options.size());
 			}
 			Path leftDirectory = Paths.get(options.get(0));
 			Path rightDirectory = Paths.get(options.get(1));
 			String version = options.get(2);
-			GroupDeployment groupDeployment = new Deployment("Maven", leftDirectory, "Gradle", rightDirectory, version)
-				.registerJarMismatchFilter("", new MainJarMismatchFilter())
-				.registerJarMismatchFilter("javadoc", new JavadocJarMismatchFilter())
-				.registerJarMismatchFilter("sources", new SourcesJarMismatchFilter())
-				.setModuleMismatchFilter(new ModuleMismatchFilter())
-				.setPomMismatchFilter(new PomMismatchFilter())
+			GroupDeployment groupDeployment = configure(
+					new Deployment("Maven", leftDirectory, "Gradle", rightDirectory, version))
+				.setArtifactTriage(triage)
 				.resolveGroupId(true, "org.springframework.ws");
-			new DeploymentDiffer(groupDeployment).diff();
-
-			logger.info("Handling special case, docs to spring-ws-docs");
-			Path leftZip = groupDeployment.leftDirectory()
-				.resolve("spring-ws")
-				.resolve(groupDeployment.version())
-				.resolve("spring-ws-%s-docs.zip".formatted(groupDeployment.version()));
-			Path rightZip = groupDeployment.rightDirectory()
-				.resolve("spring-ws-docs")
-				.resolve(groupDeployment.version())
-				.resolve("spring-ws-docs-%s.zip".formatted(groupDeployment.version()));
-			Diff<String> diff = new ZipDiffer(leftZip, rightZip).diff(MismatchFilter.noop());
-			if (!diff.hasSameEntries()) {
-				logger.error(diff.diffDescription("Mismatch between docs distribution",
-						() -> "Only in %s docs (%s)".formatted(groupDeployment.leftName(),
-								groupDeployment.leftDirectory().relativize(leftZip)),
-						() -> "Only in %s docs (%s)".formatted(groupDeployment.rightName(),
-								groupDeployment.rightDirectory().relativize(rightZip))));
+			try (groupDeployment) {
+				ProgressReporter progressReporter = new ProgressReporter(
+						DurationStyle.detectAndParse(optionValue(args, "progress-interval", "10s")));
+				if (args.containsOption("worker")) {
+					new ShardWorker(groupDeployment, optionValue(args, "worker", null), progressReporter).run();
+					return;
+				}
+				if (args.containsOption("coordinator")) {
+					int workers = Integer.parseInt(optionValue(args, "workers", "2"));
+					int port = Integer.parseInt(optionValue(args, "port", "0"));
+					int shards = Integer
+						.parseInt(optionValue(args, "shards", String.valueOf(Math.max(1, workers * 4))));
+					Duration shardTimeout = DurationStyle.detectAndParse(optionValue(args, "shard-timeout", "1m"));
+					if (workers == 0 && port == 0) {
+						throw new IllegalArgumentException(
+								"No local workers, a --port for remote workers is required");
+					}
+					new DeploymentDiffer(groupDeployment, progressReporter).diff(new ShardCoordinator(
+							workerArguments(args, workers), workers, port, shards, shardTimeout));
+				}
+				else {
+					new DeploymentDiffer(groupDeployment, progressReporter).diff();
+				}
 			}
 		};
 	}
 
-	static abstract class JarMismatchFilter implements MismatchFilter<String> {
+	private static Deployment configure(Deployment deployment) {
+		return deployment.registerJarMismatchFilter("", new MainJarMismatchFilter())
+			.registerJarMismatchFilter("javadoc", new JavadocJarMismatchFilter())
+			.registerJarMismatchFilter("sources", new SourcesJarMismatchFilter())
+			.setModuleMismatchFilter(new ModuleMismatchFilter())
+			.setPomMismatchFilter(new PomMismatchFilter())
+			.setEntryContentComparator(EntryContentComparator.defaults())
+			.registerArtifactMapping("spring-ws/{version}/spring-ws-{version}-docs.zip",
+					"spring-ws-docs/{version}/spring-ws-docs-{version}.zip");
+	}
+
+	private static List<String> workerArguments(ApplicationArguments args, int workers) {
+		List<String> arguments = new ArrayList<>();
+		for (String argument : args.getSourceArgs()) {
+			if (COORDINATOR_OPTIONS.stream().noneMatch(name -> isOption(argument, name))) {
+				arguments.add(argument);
+			}
+		}
+		long maxReadRate = DataSize.parse(optionValue(args, "max-read-rate", "0")).toBytes();
+		if (maxReadRate > 0 && workers > 0) {
+			arguments.add("--max-read-rate=%sB".formatted(Math.max(1, maxReadRate / workers)));
+		}
+		return arguments;
+	}
+
+	private static boolean isOption(String argument, String name) {
+		return argument.equals("--" + name) || argument.startsWith("--" + name + "=");
+	}
+
+	private static String optionValue(ApplicationArguments args, String name, String defaultValue) {
+		List<String> values = args.getOptionValues(name);
+		if (values == null || values.isEmpty()) {
+			if (defaultValue == null) {
+				throw new IllegalArgumentException("No value for option '--%s'".formatted(name));
+			}
+			return defaultValue;
+		}
+		return values.get(0);
+	}
+
+	static abstract class JarMismatchFilter implements MismatchFilter<String>, ByteMismatchFilter {
+
+		private static final byte[] MAVEN_METADATA = bytes("META-INF/maven");
 
 		@Override
-		public boolean ignoreInLeft(String key) {
-			return key.startsWith("META-INF/maven");
+		public final boolean ignoreInLeft(String key) {
+			byte[] name = bytes(key);
+			return ignoreInLeft(name, 0, name.length);
+		}
+
+		@Override
+		public final boolean ignoreInRight(String key) {
+			byte[] name = bytes(key);
+			return ignoreInRight(name, 0, name.length);
+		}
+
+		@Override
+		public boolean ignoreInLeft(byte[] name, int offset, int length) {
+			return ByteMismatchFilter.startsWith(name, offset, length, MAVEN_METADATA);
+		}
+
+		@Override
+		public boolean ignoreInRight(byte[] name, int offset, int length) {
+			return false;
+		}
+
+		static byte[] bytes(String value) {
+			return value.getBytes(StandardCharsets.UTF_8);
 		}
 
 	}
 
 	static class MainJarMismatchFilter extends JarMismatchFilter {
 
+		private static final byte[] PACKAGE_INFO = bytes("package-info.class");
+
 		@Override
-		public boolean ignoreInLeft(String key) {
-			boolean ignore = super.ignoreInLeft(key);
+		public boolean ignoreInLeft(byte[] name, int offset, int length) {
+			boolean ignore = super.ignoreInLeft(name, offset, length);
 			if (ignore) {
 				return true;
 			}
-			return key.endsWith("package-info.class");
-		}
-
-		@Override
-		public boolean ignoreInRight(String key) {
-			return false;
+			return ByteMismatchFilter.endsWith(name, offset, length, PACKAGE_INFO);
 		}
 
 	}
 
 	static class JavadocJarMismatchFilter extends JarMismatchFilter {
 
+		private static final byte[] CLASS_USE = bytes("/class-use/");
+
+		private static final byte[] PACKAGE_USE = bytes("/package-use.html");
+
 		@Override
-		public boolean ignoreInLeft(String key) {
-			boolean ignore = super.ignoreInLeft(key);
+		public boolean ignoreInLeft(byte[] name, int offset, int length) {
+			boolean ignore = super.ignoreInLeft(name, offset, length);
 			if (ignore) {
 				return true;
 			}
-			boolean classOrPackageUse = key.contains("/class-use/") || key.endsWith("/package-use.html");
-			if (classOrPackageUse) {
-				logger.trace("Ignoring '%s".formatted(key));
+			boolean classOrPackageUse = ByteMismatchFilter.contains(name, offset, length, CLASS_USE)
+					|| ByteMismatchFilter.endsWith(name, offset, length, PACKAGE_USE);
+			if (classOrPackageUse && logger.isTraceEnabled()) {
+				logger.trace("Ignoring '%s".formatted(new String(name, offset, length, StandardCharsets.UTF_8)));
 			}
 			return classOrPackageUse;
 		}
 
-		@Override
-		public boolean ignoreInRight(String key) {
-			return false;
-		}
-
 	}
 
 	static class SourcesJarMismatchFilter extends JarMismatchFilter {
 
-		@Override
-		public boolean ignoreInRight(String key) {
-			return false;
-		}
-
 	}
 
 	static class ModuleMismatchFilter implements MismatchFilter<String> {
@@ -0,0 +1,73 @@
+package net.nicoll.deployment.diff;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import net.nicoll.deployment.diff.RenameDetector.EntryKey;
+
+/**
+ * Entries of an archive: their {@link EntryNames names} and, in the same order, the CRC-32 and
+ * size of each entry.
+ */
+record ArchiveEntries(EntryNames names, LongBuffer keys) {
+
+	static ArchiveEntries read(Path file) throws IOException {
+		CentralDirectory centralDirectory = CentralDirectory.read(file);
+		byte[][] names = new byte[centralDirectory.size()][];
+		long[] zipKeys = new long[2 * names.length];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = centralDirectory.name(i);
+			EntryKey key = centralDirectory.entryKey(i);
+			zipKeys[2 * i] = (key != null) ? key.crc() : -1;
+			zipKeys[2 * i + 1] = (key != null) ? key.size() : -1;
+		}
+		Integer[] order = new Integer[names.length];
+		Arrays.setAll(order, i -> i);
+		Arrays.sort(order, (left, right) -> Arrays.compareUnsigned(names[left], names[right]));
+		EntryNames.Encoder encoder = new EntryNames.Encoder(names.length);
+		long[] keys = new long[zipKeys.length];
+		for (int i = 0; i < order.length; i++) {
+			encoder.add(names[order[i]]);
+			keys[2 * i] = zipKeys[2 * order[i]];
+			keys[2 * i + 1] = zipKeys[2 * order[i] + 1];
+		}
+		return new ArchiveEntries(encoder.build(), LongBuffer.wrap(keys));
+	}
+
+	void writeTo(DataOutput out) throws IOException {
+		this.names.writeTo(out);
+		for (int i = 0; i < this.keys.limit(); i++) {
+			out.writeLong(this.keys.get(i));
+		}
+	}
+
+	/**
+	 * Read entries {@linkplain #writeTo(DataOutput) written} at the position of the specified
+	 * buffer, and move the buffer past them. Like {@link EntryNames#readFrom(ByteBuffer)}, the
+	 * returned instance reads them from views of the buffer.
+	 */
+	static ArchiveEntries readFrom(ByteBuffer buffer) {
+		EntryNames names = EntryNames.readFrom(buffer);
+		return new ArchiveEntries(names, EntryNames.slice(buffer, 16 * names.size()).asLongBuffer());
+	}
+
+	/**
+	 * Return the CRC-32 and size of the entry at the specified index of {@link #names()}, or
+	 * {@code null} if there is no such entry or it has no content.
+	 */
+	EntryKey entryKey(int index) {
+		if (index == -1 || this.keys.get(2 * index) == -1) {
+			return null;
+		}
+		return new EntryKey(this.keys.get(2 * index), this.keys.get(2 * index + 1));
+	}
+
+	EntryKey entryKey(String name) {
+		return entryKey(this.names.indexOf(name));
+	}
+
+}
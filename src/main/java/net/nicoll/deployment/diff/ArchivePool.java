@@ -0,0 +1,231 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchivePool implements AutoCloseable {
+
+	private static final Log logger = LogFactory.getLog(ArchivePool.class);
+
+	private static volatile ArchivePool shared = new ArchivePool(64, ReadRateLimiter.unlimited());
+
+	private final int maxOpenArchives;
+
+	private final ReadRateLimiter readRateLimiter;
+
+	private final Map<Path, PooledArchive> archives = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final ThreadLocal<int[]> heldLeases = ThreadLocal.withInitial(() -> new int[1]);
+
+	private int openArchives;
+
+	ArchivePool(int maxOpenArchives, ReadRateLimiter readRateLimiter) {
+		if (maxOpenArchives < 1) {
+			throw new IllegalArgumentException("At least one open archive is required, got " + maxOpenArchives);
+		}
+		this.maxOpenArchives = maxOpenArchives;
+		this.readRateLimiter = readRateLimiter;
+	}
+
+	static ArchivePool shared() {
+		return shared;
+	}
+
+	static void configure(int maxOpenArchives, long maxBytesPerSecond) {
+		ArchivePool previous = shared;
+		shared = new ArchivePool(maxOpenArchives, new ReadRateLimiter(maxBytesPerSecond));
+		previous.close();
+	}
+
+	ReadRateLimiter readRateLimiter() {
+		return this.readRateLimiter;
+	}
+
+	Lease acquire(Path file) throws IOException {
+		assertThat(file).exists().isRegularFile();
+		Path key = file.toAbsolutePath().normalize();
+		ArchiveVersion version = ArchiveVersion.of(key);
+		synchronized (this) {
+			while (true) {
+				PooledArchive archive = this.archives.get(key);
+				if (archive != null && archive.version.equals(version)) {
+					return lease(archive);
+				}
+				if (archive != null) {
+					logger.trace("Discarding stale handle of '%s'".formatted(key));
+					this.archives.remove(key);
+					retire(archive);
+				}
+				if (this.openArchives < this.maxOpenArchives || evictIdleArchive() || this.heldLeases.get()[0] > 0) {
+					this.openArchives++;
+					break;
+				}
+				try {
+					wait();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for an archive handle");
+				}
+			}
+		}
+		ZipFile zipFile;
+		try {
+			zipFile = new ZipFile(key.toFile());
+		}
+		catch (IOException | RuntimeException ex) {
+			closed();
+			throw ex;
+		}
+		synchronized (this) {
+			PooledArchive archive = this.archives.get(key);
+			if (archive != null && archive.version.equals(version)) {
+				this.openArchives--;
+				closeQuietly(zipFile);
+				return lease(archive);
+			}
+			if (archive != null) {
+				retire(archive);
+			}
+			archive = new PooledArchive(zipFile, version);
+			this.archives.put(key, archive);
+			return lease(archive);
+		}
+	}
+
+	private Lease lease(PooledArchive archive) {
+		archive.leases++;
+		this.heldLeases.get()[0]++;
+		return new Lease(archive);
+	}
+
+	private synchronized void release(PooledArchive archive) {
+		archive.leases--;
+		this.heldLeases.get()[0]--;
+		if (archive.retired && archive.leases == 0) {
+			closeArchive(archive);
+		}
+		while (this.openArchives > this.maxOpenArchives && evictIdleArchive()) {
+			logger.trace("Closed an archive opened beyond the limit");
+		}
+		notifyAll();
+	}
+
+	private synchronized void closed() {
+		this.openArchives--;
+		notifyAll();
+	}
+
+	private void retire(PooledArchive archive) {
+		archive.retired = true;
+		if (archive.leases == 0) {
+			closeArchive(archive);
+		}
+	}
+
+	private void closeArchive(PooledArchive archive) {
+		this.openArchives--;
+		closeQuietly(archive.zipFile);
+	}
+
+	private boolean evictIdleArchive() {
+		Iterator<Map.Entry<Path, PooledArchive>> it = this.archives.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Path, PooledArchive> entry = it.next();
+			if (entry.getValue().leases == 0) {
+				it.remove();
+				logger.trace("Evicting '%s'".formatted(entry.getKey()));
+				closeArchive(entry.getValue());
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized void close() {
+		List<PooledArchive> archives = new ArrayList<>(this.archives.values());
+		this.archives.clear();
+		archives.forEach(this::retire);
+	}
+
+	private static void closeQuietly(ZipFile zipFile) {
+		try {
+			zipFile.close();
+		}
+		catch (IOException ex) {
+			logger.debug("Failed to close '%s'".formatted(zipFile.getName()), ex);
+		}
+	}
+
+	private record ArchiveVersion(long size, long lastModified) {
+
+		static ArchiveVersion of(Path file) throws IOException {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			return new ArchiveVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+		}
+
+	}
+
+	private static final class PooledArchive {
+
+		private final ZipFile zipFile;
+
+		private final ArchiveVersion version;
+
+		private int leases;
+
+		private boolean retired;
+
+		private PooledArchive(ZipFile zipFile, ArchiveVersion version) {
+			this.zipFile = zipFile;
+			this.version = version;
+		}
+
+	}
+
+	final class Lease implements AutoCloseable {
+
+		private final PooledArchive archive;
+
+		private boolean released;
+
+		private Lease(PooledArchive archive) {
+			this.archive = archive;
+		}
+
+		ZipFile zipFile() {
+			return this.archive.zipFile;
+		}
+
+		InputStream getInputStream(ZipEntry entry) throws IOException {
+			return ArchivePool.this.readRateLimiter.throttle(this.archive.zipFile.getInputStream(entry));
+		}
+
+		@Override
+		public void close() {
+			if (!this.released) {
+				this.released = true;
+				release(this.archive);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,130 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.nicoll.deployment.diff.RenameDetector.EntryKey;
+
+/**
+ * Bloom filter of the entries of an archive, each entry being identified by its name, CRC-32
+ * and size. Archives with the same entries have the same sketch, while archives that differ
+ * by at least one entry share a sketch with a probability bounded by the false positive rate
+ * the sketches are sized for, on top of the chance of a changed entry keeping its CRC-32 and
+ * size. Sketches of archive files are cached per process, for the last
+ * {@value #MAX_CACHED_SKETCHES} archive versions.
+ */
+final class ArtifactSketch {
+
+	private static final int MAX_CACHED_SKETCHES = 1024;
+
+	private static final Map<CacheKey, ArtifactSketch> cache = new LinkedHashMap<>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, ArtifactSketch> eldest) {
+			return size() > MAX_CACHED_SKETCHES;
+		}
+
+	};
+
+	private final int entries;
+
+	private final int hashes;
+
+	private final long[] bits;
+
+	private final int bitCount;
+
+	private int added;
+
+	private ArtifactSketch(int entries, double falsePositiveRate) {
+		double ln2 = Math.log(2);
+		this.entries = entries;
+		this.bitCount = (int) Math.max(64,
+				Math.ceil(-Math.max(1, entries) * Math.log(falsePositiveRate) / (ln2 * ln2)));
+		this.hashes = (int) Math.max(1, Math.round((double) this.bitCount / Math.max(1, entries) * ln2));
+		this.bits = new long[(this.bitCount + 63) / 64];
+	}
+
+	/**
+	 * Return the sketch of the specified archive, building it from the entries provided by the
+	 * specified source if the current version of the archive has no cached sketch.
+	 */
+	static ArtifactSketch read(Path archive, double falsePositiveRate, EntriesSource entries) throws IOException {
+		CacheKey key = new CacheKey(archive.toAbsolutePath().normalize(), Files.size(archive),
+				Files.getLastModifiedTime(archive).toMillis(), falsePositiveRate);
+		synchronized (cache) {
+			ArtifactSketch sketch = cache.get(key);
+			if (sketch != null) {
+				return sketch;
+			}
+		}
+		ArtifactSketch sketch = of(entries.read(), falsePositiveRate);
+		synchronized (cache) {
+			cache.put(key, sketch);
+		}
+		return sketch;
+	}
+
+	static ArtifactSketch of(ArchiveEntries entries, double falsePositiveRate) {
+		ArtifactSketch sketch = new ArtifactSketch(entries.names().size(), falsePositiveRate);
+		int index = 0;
+		for (String name : entries.names()) {
+			sketch.add(name, entries.entryKey(index++));
+		}
+		return sketch;
+	}
+
+	private void add(String name, EntryKey key) {
+		long hash = hash(name, key);
+		long first = mix(hash);
+		long second = mix(first ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < this.hashes; i++) {
+			int bit = (int) Long.remainderUnsigned(first + i * second, this.bitCount);
+			this.bits[bit >>> 6] |= 1L << bit;
+		}
+		this.added++;
+	}
+
+	boolean matches(ArtifactSketch other) {
+		return this.entries == other.entries && this.added == other.added && this.hashes == other.hashes
+				&& Arrays.equals(this.bits, other.bits);
+	}
+
+	long sizeInBytes() {
+		return 8L * this.bits.length;
+	}
+
+	private static long hash(String name, EntryKey key) {
+		long hash = 0xCBF29CE484222325L;
+		for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+			hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+		}
+		hash = mix(hash ^ ((key != null) ? key.crc() : -1));
+		return mix(hash ^ ((key != null) ? key.size() : -1));
+	}
+
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * Source of the entries of an archive, typically the index that has them already loaded.
+	 */
+	@FunctionalInterface
+	interface EntriesSource {
+
+		ArchiveEntries read() throws IOException;
+
+	}
+
+	private record CacheKey(Path archive, long size, long lastModified, double falsePositiveRate) {
+	}
+
+}
@@ -0,0 +1,44 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+
+/**
+ * Triage of JAR pairs on their {@link ArtifactSketch sketches}: a pair whose sketches match is
+ * considered identical and is not diffed entry by entry.
+ */
+record ArtifactTriage(double falsePositiveRate) {
+
+	private static final ArtifactTriage NONE = new ArtifactTriage(0);
+
+	static ArtifactTriage none() {
+		return NONE;
+	}
+
+	/**
+	 * Create a triage whose sketches are sized for the specified false positive rate. Entries
+	 * are identified by their name, CRC-32 and size, so an entry whose content changes but
+	 * keeps the same CRC-32 and size is not detected: the rate cannot go below that collision
+	 * floor of about 2^-32 per changed entry.
+	 */
+	static ArtifactTriage of(double falsePositiveRate) {
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException(
+					"False positive rate must be between 0 and 1, got " + falsePositiveRate);
+		}
+		return new ArtifactTriage(falsePositiveRate);
+	}
+
+	boolean isEnabled() {
+		return this.falsePositiveRate > 0;
+	}
+
+	boolean hasSameEntries(ModuleIndex left, ModuleIndex right, String classifier) throws IOException {
+		if (!isEnabled()) {
+			return false;
+		}
+		ArtifactSketch leftSketch = left.sketch(classifier, this.falsePositiveRate);
+		ArtifactSketch rightSketch = right.sketch(classifier, this.falsePositiveRate);
+		return leftSketch.matches(rightSketch);
+	}
+
+}
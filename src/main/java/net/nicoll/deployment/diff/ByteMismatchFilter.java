@@ -0,0 +1,48 @@
+package net.nicoll.deployment.diff;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+interface ByteMismatchFilter {
+
+	static ByteMismatchFilter of(MismatchFilter<String> filter) {
+		if (filter instanceof ByteMismatchFilter byteFilter) {
+			return byteFilter;
+		}
+		return new ByteMismatchFilter() {
+			@Override
+			public boolean ignoreInLeft(byte[] name, int offset, int length) {
+				return filter.ignoreInLeft(new String(name, offset, length, StandardCharsets.UTF_8));
+			}
+
+			@Override
+			public boolean ignoreInRight(byte[] name, int offset, int length) {
+				return filter.ignoreInRight(new String(name, offset, length, StandardCharsets.UTF_8));
+			}
+		};
+	}
+
+	static boolean startsWith(byte[] name, int offset, int length, byte[] prefix) {
+		return length >= prefix.length
+				&& Arrays.equals(name, offset, offset + prefix.length, prefix, 0, prefix.length);
+	}
+
+	static boolean endsWith(byte[] name, int offset, int length, byte[] suffix) {
+		return length >= suffix.length
+				&& Arrays.equals(name, offset + length - suffix.length, offset + length, suffix, 0, suffix.length);
+	}
+
+	static boolean contains(byte[] name, int offset, int length, byte[] part) {
+		for (int i = offset; i <= offset + length - part.length; i++) {
+			if (Arrays.equals(name, i, i + part.length, part, 0, part.length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	boolean ignoreInLeft(byte[] name, int offset, int length);
+
+	boolean ignoreInRight(byte[] name, int offset, int length);
+
+}
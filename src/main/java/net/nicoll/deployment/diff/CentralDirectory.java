@@ -0,0 +1,182 @@
+package net.nicoll.deployment.diff;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+
+import net.nicoll.deployment.diff.RenameDetector.EntryKey;
+
+/**
+ * Central directory of a ZIP archive, parsed without decoding the names of its entries. Names
+ * are exposed as the raw bytes of the archive, which are UTF-8 for the archives that
+ * {@link java.util.zip.ZipFile} reads with its default charset.
+ */
+final class CentralDirectory {
+
+	private static final int END_SIGNATURE = 0x06054b50;
+
+	private static final int END_SIZE = 22;
+
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+	private static final int ZIP64_END_SIZE = 56;
+
+	private static final int ZIP64_EXTRA_ID = 0x0001;
+
+	private static final int HEADER_SIGNATURE = 0x02014b50;
+
+	private static final int HEADER_SIZE = 46;
+
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	private final ByteBuffer headers;
+
+	private final int[] offsets;
+
+	private CentralDirectory(ByteBuffer headers, int[] offsets) {
+		this.headers = headers;
+		this.offsets = offsets;
+	}
+
+	static CentralDirectory read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			long tailPosition = Math.max(0, fileSize - END_SIZE - MAX_COMMENT_SIZE);
+			ByteBuffer tail = read(channel, tailPosition, (int) (fileSize - tailPosition));
+			int end = findEnd(tail);
+			if (end == -1) {
+				throw new ZipException("No end of central directory record in '%s'".formatted(file));
+			}
+			long size = Integer.toUnsignedLong(tail.getInt(end + 12));
+			long position = tailPosition + end - size;
+			if (size == ZIP64_MAGIC || Short.toUnsignedInt(tail.getShort(end + 10)) == 0xFFFF) {
+				int locator = end - ZIP64_LOCATOR_SIZE;
+				if (locator >= 0 && tail.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+					long zip64EndPosition = tail.getLong(locator + 8);
+					ByteBuffer zip64End = read(channel, zip64EndPosition, ZIP64_END_SIZE);
+					if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+						throw new ZipException("Invalid ZIP64 end of central directory in '%s'".formatted(file));
+					}
+					size = zip64End.getLong(40);
+					position = zip64EndPosition - size;
+				}
+			}
+			if (size > Integer.MAX_VALUE || position < 0) {
+				throw new ZipException("Invalid central directory in '%s'".formatted(file));
+			}
+			ByteBuffer headers = read(channel, position, (int) size);
+			return new CentralDirectory(headers, offsets(headers, file));
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) {
+				throw new EOFException("Unexpected end of archive at " + (position + buffer.position()));
+			}
+		}
+		return buffer.flip();
+	}
+
+	private static int findEnd(ByteBuffer tail) {
+		for (int i = tail.limit() - END_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE
+					&& i + END_SIZE + Short.toUnsignedInt(tail.getShort(i + 20)) <= tail.limit()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int[] offsets(ByteBuffer headers, Path file) throws ZipException {
+		int[] offsets = new int[Math.max(16, headers.limit() / 128)];
+		int count = 0;
+		int offset = 0;
+		while (offset + HEADER_SIZE <= headers.limit()) {
+			if (headers.getInt(offset) != HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header at %s in '%s'".formatted(offset, file));
+			}
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			offsets[count++] = offset;
+			offset += HEADER_SIZE + Short.toUnsignedInt(headers.getShort(offset + 28))
+					+ Short.toUnsignedInt(headers.getShort(offset + 30))
+					+ Short.toUnsignedInt(headers.getShort(offset + 32));
+		}
+		if (offset != headers.limit()) {
+			throw new ZipException("Truncated central directory in '%s'".formatted(file));
+		}
+		return Arrays.copyOf(offsets, count);
+	}
+
+	/**
+	 * Return the number of entries, in the order of the central directory.
+	 */
+	int size() {
+		return this.offsets.length;
+	}
+
+	/**
+	 * Return a copy of the raw bytes of the name of the entry at the specified index.
+	 */
+	byte[] name(int index) {
+		int offset = this.offsets[index];
+		byte[] name = new byte[nameLength(offset)];
+		this.headers.get(offset + HEADER_SIZE, name);
+		return name;
+	}
+
+	/**
+	 * Return the CRC-32 and size of the entry at the specified index, or {@code null} if it is
+	 * a directory or has no content, consistently with {@link RenameDetector#entryKey}.
+	 */
+	EntryKey entryKey(int index) {
+		int offset = this.offsets[index];
+		int nameLength = nameLength(offset);
+		if (nameLength > 0 && this.headers.get(offset + HEADER_SIZE + nameLength - 1) == '/') {
+			return null;
+		}
+		long size = uncompressedSize(offset, nameLength);
+		if (size <= 0) {
+			return null;
+		}
+		return new EntryKey(Integer.toUnsignedLong(this.headers.getInt(offset + 16)), size);
+	}
+
+	private int nameLength(int offset) {
+		return Short.toUnsignedInt(this.headers.getShort(offset + 28));
+	}
+
+	private long uncompressedSize(int offset, int nameLength) {
+		long size = Integer.toUnsignedLong(this.headers.getInt(offset + 24));
+		if (size != ZIP64_MAGIC) {
+			return size;
+		}
+		int extra = offset + HEADER_SIZE + nameLength;
+		int extraEnd = extra + Short.toUnsignedInt(this.headers.getShort(offset + 30));
+		while (extra + 4 <= extraEnd) {
+			int id = Short.toUnsignedInt(this.headers.getShort(extra));
+			int length = Short.toUnsignedInt(this.headers.getShort(extra + 2));
+			if (id == ZIP64_EXTRA_ID && length >= 8) {
+				return this.headers.getLong(extra + 4);
+			}
+			extra += 4 + length;
+		}
+		return size;
+	}
+
+}
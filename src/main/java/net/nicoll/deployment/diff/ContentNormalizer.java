@@ -0,0 +1,52 @@
+package net.nicoll.deployment.diff;
+
+import java.util.regex.Pattern;
+
+@FunctionalInterface
+interface ContentNormalizer {
+
+	Pattern JAVADOC_GENERATED = Pattern.compile("<!-- Generated by javadoc[^>]*-->");
+
+	Pattern HTML_DATE_META = Pattern.compile("<meta name=\"(?:date|dc\\.created)\" content=\"[^\"]*\">");
+
+	Pattern ASCIIDOCTOR_LAST_UPDATED = Pattern.compile("Last updated \\d{4}-\\d{2}-\\d{2}[^<\\n]*");
+
+	Pattern PROPERTIES_TIMESTAMP = Pattern
+		.compile("^#\\p{Alpha}{3} \\p{Alpha}{3} \\d{2} \\d{2}:\\d{2}:\\d{2} \\S+ \\d{4}");
+
+	Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	static ContentNormalizer replacing(Pattern pattern, String replacement) {
+		return line -> pattern.matcher(line).replaceAll(replacement);
+	}
+
+	static ContentNormalizer timestamps() {
+		return replacing(JAVADOC_GENERATED, "<!-- Generated by javadoc -->")
+			.andThen(replacing(HTML_DATE_META, "<meta name=\"date\">"))
+			.andThen(replacing(ASCIIDOCTOR_LAST_UPDATED, "Last updated"))
+			.andThen(replacing(PROPERTIES_TIMESTAMP, "#"));
+	}
+
+	static ContentNormalizer lineEndings() {
+		return line -> {
+			String normalized = line.replace("\r\n", "\n").replace('\r', '\n');
+			return (normalized.endsWith("\n")) ? normalized : normalized + "\n";
+		};
+	}
+
+	static ContentNormalizer whitespace() {
+		return line -> {
+			boolean endOfLine = line.endsWith("\n");
+			String content = (endOfLine) ? line.substring(0, line.length() - 1) : line;
+			content = WHITESPACE.matcher(content.strip()).replaceAll(" ");
+			return (endOfLine) ? content + "\n" : content;
+		};
+	}
+
+	String normalize(String line);
+
+	default ContentNormalizer andThen(ContentNormalizer next) {
+		return line -> next.normalize(normalize(line));
+	}
+
+}
@@ -0,0 +1,86 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+abstract class ContentUtils {
+
+	static final long CHUNK_SIZE = 16 * 1024 * 1024;
+
+	static boolean hasSameContent(Path left, Path right) throws IOException {
+		long size = Files.size(left);
+		if (size != Files.size(right)) {
+			return false;
+		}
+		ReadRateLimiter readRateLimiter = ArchivePool.shared().readRateLimiter();
+		if (size <= CHUNK_SIZE) {
+			long mismatch = Files.mismatch(left, right);
+			readRateLimiter.acquire(2 * comparedBytes(mismatch, size));
+			return mismatch == -1;
+		}
+		LongAdder readCounter = ReadRateLimiter.readCounter();
+		try (FileChannel leftChannel = FileChannel.open(left, StandardOpenOption.READ);
+				FileChannel rightChannel = FileChannel.open(right, StandardOpenOption.READ)) {
+			long chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			return LongStream.range(0, chunks)
+				.parallel()
+				.allMatch(chunk -> hasSameChunk(leftChannel, rightChannel, chunk * CHUNK_SIZE,
+						Math.min(CHUNK_SIZE, size - chunk * CHUNK_SIZE), readRateLimiter, readCounter));
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	static String digest(Path file) throws IOException {
+		ReadRateLimiter readRateLimiter = ArchivePool.shared().readRateLimiter();
+		try (InputStream in = Files.newInputStream(file)) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				readRateLimiter.acquire(read);
+				digest.update(buffer, 0, read);
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	private static boolean hasSameChunk(FileChannel left, FileChannel right, long position, long length,
+			ReadRateLimiter readRateLimiter, LongAdder readCounter) {
+		try {
+			MappedByteBuffer leftBuffer = left.map(MapMode.READ_ONLY, position, length);
+			MappedByteBuffer rightBuffer = right.map(MapMode.READ_ONLY, position, length);
+			long mismatch = leftBuffer.mismatch(rightBuffer);
+			readRateLimiter.acquire(2 * comparedBytes(mismatch, length), readCounter);
+			return mismatch == -1;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Return the number of bytes compared on each side, up to and including the first
+	 * mismatch if any.
+	 */
+	private static long comparedBytes(long mismatch, long length) {
+		return (mismatch != -1) ? mismatch + 1 : length;
+	}
+
+}
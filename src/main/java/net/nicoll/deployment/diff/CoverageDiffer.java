@@ -0,0 +1,93 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.nicoll.deployment.diff.DiffUtils.Diff;
+
+class CoverageDiffer {
+
+	static final String SOURCES = "sources";
+
+	static final String JAVADOC = "javadoc";
+
+	private static final List<String> SOURCE_EXTENSIONS = List.of(".java", ".kt", ".groovy");
+
+	private final ModuleIndex left;
+
+	private final ModuleIndex right;
+
+	CoverageDiffer(ModuleIndex left, ModuleIndex right) {
+		this.left = left;
+		this.right = right;
+	}
+
+	List<CoverageDiff> diff(Set<String> skippedClassifiers) throws IOException {
+		if (!this.left.hasClassifier("") || !this.right.hasClassifier("")) {
+			return List.of();
+		}
+		List<String> classifiers = new ArrayList<>();
+		for (String classifier : List.of(SOURCES, JAVADOC)) {
+			boolean unchanged = skippedClassifiers.contains("") && skippedClassifiers.contains(classifier);
+			if (!unchanged && this.left.hasClassifier(classifier) && this.right.hasClassifier(classifier)) {
+				classifiers.add(classifier);
+			}
+		}
+		if (classifiers.isEmpty()) {
+			return List.of();
+		}
+		Map<String, List<String>> leftUncovered = uncoveredTypes(this.left, classifiers);
+		Map<String, List<String>> rightUncovered = uncoveredTypes(this.right, classifiers);
+		List<CoverageDiff> coverageDiffs = new ArrayList<>();
+		for (String classifier : classifiers) {
+			Diff<String> diff = DiffUtils.diff(leftUncovered.get(classifier), rightUncovered.get(classifier),
+					MismatchFilter.noop());
+			coverageDiffs.add(new CoverageDiff(classifier, diff.onlyInLeft(), diff.onlyInRight()));
+		}
+		return coverageDiffs;
+	}
+
+	private static Map<String, List<String>> uncoveredTypes(ModuleIndex index, List<String> classifiers)
+			throws IOException {
+		EntryNames sources = classifiers.contains(SOURCES) ? index.entries(SOURCES) : EntryNames.of(List.of());
+		EntryNames javadoc = classifiers.contains(JAVADOC) ? index.entries(JAVADOC) : EntryNames.of(List.of());
+		List<String> withoutSources = new ArrayList<>();
+		List<String> withoutJavadoc = new ArrayList<>();
+		for (String entry : index.entries("")) {
+			String type = toTypeName(entry);
+			if (type == null) {
+				continue;
+			}
+			if (classifiers.contains(SOURCES)
+					&& SOURCE_EXTENSIONS.stream().noneMatch(extension -> sources.contains(type + extension))) {
+				withoutSources.add(type);
+			}
+			if (classifiers.contains(JAVADOC) && !javadoc.contains(type + ".html")) {
+				withoutJavadoc.add(type);
+			}
+		}
+		return Map.of(SOURCES, withoutSources, JAVADOC, withoutJavadoc);
+	}
+
+	private static String toTypeName(String entry) {
+		if (!entry.endsWith(".class") || entry.startsWith("META-INF/") || entry.contains("$")) {
+			return null;
+		}
+		if (entry.endsWith("package-info.class") || entry.endsWith("module-info.class")) {
+			return null;
+		}
+		return entry.substring(0, entry.length() - ".class".length());
+	}
+
+	record CoverageDiff(String classifier, List<String> uncoveredOnlyInLeft, List<String> uncoveredOnlyInRight) {
+
+		public boolean hasSameEntries() {
+			return this.uncoveredOnlyInLeft.isEmpty() && this.uncoveredOnlyInRight.isEmpty();
+		}
+
+	}
+
+}
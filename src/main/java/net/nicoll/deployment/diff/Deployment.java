@@ -1,6 +1,7 @@
 package net.nicoll.deployment.diff;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
@@ -10,11 +11,12 @@ import org.apache.maven.model.Dependency;
 
 record Deployment(String leftName, Path leftDirectory, String rightName, Path rightDirectory, String version,
 		Map<String, MismatchFilter<String>> jarMismatchFilters, MismatchFilter<String> moduleMismatchFilter,
-		MismatchFilter<Dependency> pomMismatchFilter) {
+		MismatchFilter<Dependency> pomMismatchFilter, EntryContentComparator entryContentComparator,
+		RenameRules renameRules, ArtifactTriage artifactTriage) {
 
 	Deployment(String leftName, Path leftDirectory, String rightName, Path rightDirectory, String version) {
 		this(leftName, leftDirectory, rightName, rightDirectory, version, new HashMap<>(), MismatchFilter.noop(),
-				MismatchFilter.noop());
+				MismatchFilter.noop(), EntryContentComparator.none(), RenameRules.none(), ArtifactTriage.none());
 	}
 
 	MismatchFilter<String> jarMismatchFilter(String classifier) {
@@ -26,30 +28,68 @@ record Deployment(String leftName, Path leftDirectory, String rightName, Path ri
 		HashMap<String, MismatchFilter<String>> map = new HashMap<>(this.jarMismatchFilters);
 		map.put(classifier, filter);
 		return new Deployment(this.leftName, this.leftDirectory, this.rightName, this.rightDirectory, this.version, map,
-				this.moduleMismatchFilter, this.pomMismatchFilter);
+				this.moduleMismatchFilter, this.pomMismatchFilter, this.entryContentComparator,
+				this.renameRules, this.artifactTriage);
 	}
 
 	Deployment setModuleMismatchFilter(MismatchFilter<String> filter) {
 		return new Deployment(this.leftName, this.leftDirectory, this.rightName, this.rightDirectory, this.version,
-				this.jarMismatchFilters, filter, this.pomMismatchFilter);
+				this.jarMismatchFilters, filter, this.pomMismatchFilter, this.entryContentComparator,
+				this.renameRules, this.artifactTriage);
 	}
 
 	Deployment setPomMismatchFilter(MismatchFilter<Dependency> filter) {
 		return new Deployment(this.leftName, this.leftDirectory, this.rightName, this.rightDirectory, this.version,
-				this.jarMismatchFilters, this.moduleMismatchFilter, filter);
+				this.jarMismatchFilters, this.moduleMismatchFilter, filter, this.entryContentComparator,
+				this.renameRules, this.artifactTriage);
+	}
+
+	Deployment setEntryContentComparator(EntryContentComparator comparator) {
+		return new Deployment(this.leftName, this.leftDirectory, this.rightName, this.rightDirectory, this.version,
+				this.jarMismatchFilters, this.moduleMismatchFilter, this.pomMismatchFilter, comparator,
+				this.renameRules, this.artifactTriage);
+	}
+
+	Deployment registerModuleMapping(String leftModuleName, String rightModuleName) {
+		return new Deployment(this.leftName, this.leftDirectory, this.rightName, this.rightDirectory, this.version,
+				this.jarMismatchFilters, this.moduleMismatchFilter, this.pomMismatchFilter,
+				this.entryContentComparator, this.renameRules.withModule(leftModuleName, rightModuleName),
+				this.artifactTriage);
+	}
+
+	Deployment registerArtifactMapping(String leftArtifact, String rightArtifact) {
+		return new Deployment(this.leftName, this.leftDirectory, this.rightName, this.rightDirectory, this.version,
+				this.jarMismatchFilters, this.moduleMismatchFilter, this.pomMismatchFilter,
+				this.entryContentComparator, this.renameRules.withArtifact(leftArtifact, rightArtifact),
+				this.artifactTriage);
+	}
+
+	Deployment setArtifactTriage(ArtifactTriage triage) {
+		return new Deployment(this.leftName, this.leftDirectory, this.rightName, this.rightDirectory, this.version,
+				this.jarMismatchFilters, this.moduleMismatchFilter, this.pomMismatchFilter,
+				this.entryContentComparator, this.renameRules, triage);
 	}
 
 	GroupDeployment resolveGroupId(boolean unique, String groupId) throws IOException {
-		String[] parts = groupId.split("\\.");
-		Path targetLeft = this.leftDirectory;
-		for (String part : parts) {
-			targetLeft = resolveDirectory(unique, targetLeft, part);
+		Path targetLeft = resolveGroupDirectory(unique, this.leftDirectory, groupId);
+		Path targetRight = resolveGroupDirectory(unique, this.rightDirectory, groupId);
+		return new GroupDeployment(this, targetLeft, targetRight, groupId);
+	}
+
+	private Path resolveGroupDirectory(boolean unique, Path root, String groupId) throws IOException {
+		if (Files.isRegularFile(root)) {
+			RepositorySnapshot snapshot = RepositorySnapshot.load(root);
+			if (!snapshot.groupId().equals(groupId) || !snapshot.version().equals(this.version)) {
+				throw new IllegalStateException("Snapshot '%s' is for %s %s, expected %s %s".formatted(root,
+						snapshot.groupId(), snapshot.version(), groupId, this.version));
+			}
+			return root;
 		}
-		Path targetRight = this.rightDirectory;
-		for (String part : parts) {
-			targetRight = resolveDirectory(unique, targetRight, part);
+		Path target = root;
+		for (String part : groupId.split("\\.")) {
+			target = resolveDirectory(unique, target, part);
 		}
-		return new GroupDeployment(this, targetLeft, targetRight, groupId);
+		return target;
 	}
 
 	private static Path resolveDirectory(boolean unique, Path directory, String name) throws IOException {
@@ -1,39 +1,112 @@
 package net.nicoll.deployment.diff;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
+import net.nicoll.deployment.diff.CoverageDiffer.CoverageDiff;
+import net.nicoll.deployment.diff.DiffUtils.Diff;
+import net.nicoll.deployment.diff.JarDiffer.JarDiff;
 import net.nicoll.deployment.diff.PomDiffer.PomDiff;
 import net.nicoll.deployment.diff.PomDiffer.PomMismatch;
+import net.nicoll.deployment.diff.RenameDetector.Move;
+import net.nicoll.deployment.diff.RenameDetector.Moves;
+import net.nicoll.deployment.diff.RenameRules.ArtifactMapping;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.maven.model.Dependency;
 
-import org.springframework.util.function.ThrowingFunction;
-
 class DeploymentDiffer {
 
 	private static final Log logger = LogFactory.getLog(DeploymentDiffer.class);
 
 	private final GroupDeployment groupDeployment;
 
+	private final ProgressReporter progressReporter;
+
 	DeploymentDiffer(GroupDeployment groupDeployment) {
+		this(groupDeployment, new ProgressReporter(Duration.ZERO));
+	}
+
+	DeploymentDiffer(GroupDeployment groupDeployment, ProgressReporter progressReporter) {
 		this.groupDeployment = groupDeployment;
+		this.progressReporter = progressReporter;
+	}
+
+	public DeploymentReport diff() throws IOException {
+		logHeader();
+		List<String> moves = new ArrayList<>();
+		List<String> mismatches = new ArrayList<>();
+		List<Module> modules = modules(mismatches);
+		List<ModuleReport> reports = new ArrayList<>();
+		try (ProgressReporter progress = this.progressReporter) {
+			progress.start(modules.size());
+			for (Module module : modules) {
+				reports.add(diff(module));
+			}
+		}
+		diffArtifacts(modules, moves, mismatches);
+		return logReport(new DeploymentReport(reports, moves, mismatches));
 	}
 
-	public void diff() throws IOException {
+	public DeploymentReport diff(ShardCoordinator coordinator) throws IOException {
+		logHeader();
+		List<String> moves = new ArrayList<>();
+		List<String> mismatches = new ArrayList<>();
+		List<Module> modules = modules(mismatches);
+		List<ModuleReport> reports;
+		try (ProgressReporter progress = this.progressReporter) {
+			progress.start(modules.size());
+			reports = coordinator.diff(modules, progress);
+		}
+		diffArtifacts(modules, moves, mismatches);
+		return logReport(new DeploymentReport(reports, moves, mismatches));
+	}
+
+	ModuleReport diff(Module module) throws IOException {
+		ModuleDiff moduleDiff = new ModuleDiffer(this.groupDeployment, module, this.progressReporter).diff();
+		this.progressReporter.modulesDiffed(1);
+		List<String> moves = new ArrayList<>();
+		RenameRules renameRules = this.groupDeployment.deployment().renameRules();
+		if (!renameRules.rightModuleName(module.name()).equals(module.rightName())) {
+			moves.add("Module '%s' in %s has moved to '%s' in %s".formatted(module.name(),
+					this.groupDeployment.leftName(), module.rightName(), this.groupDeployment.rightName()));
+		}
+		moves.addAll(moduleDiff.moves());
+		return new ModuleReport(module.name(), moduleDiff.hasSameEntries(), describe(moduleDiff),
+				moduleDiff.identicalArtifacts().size(), moves);
+	}
+
+	private void logHeader() {
 		logger.info("Diffing %s from '%s' against '%s'".formatted(this.groupDeployment.version(),
 				this.groupDeployment.leftDirectory(), this.groupDeployment.rightDirectory()));
-		List<ModuleDiff> moduleDiffs = diffModules(module -> new ModuleDiffer(this.groupDeployment, module).diff());
-		moduleDiffs.forEach(this::logModuleDiff);
 	}
 
-	private void logModuleDiff(ModuleDiff moduleDiff) {
+	private DeploymentReport logReport(DeploymentReport deploymentReport) {
+		for (ModuleReport report : deploymentReport.modules()) {
+			if (report.sameEntries()) {
+				logger.info("Module '%s' has similar entries".formatted(report.module()));
+			}
+			else {
+				logger.error(report.description());
+			}
+			if (!report.moves().isEmpty()) {
+				logger.warn(report.movesDescription());
+			}
+		}
+		deploymentReport.mismatches().forEach(logger::error);
+		deploymentReport.moves().forEach(logger::warn);
+		logger.info("Diffed %s".formatted(deploymentReport.summary()));
+		return deploymentReport;
+	}
+
+	private String describe(ModuleDiff moduleDiff) {
 		String moduleName = moduleDiff.module().name();
 		if (moduleDiff.hasSameEntries()) {
-			logger.info("Module '%s' has similar entries".formatted(moduleName));
+			return null;
 		}
 		else {
 			StringBuilder message = new StringBuilder("Diff result for %s:".formatted(moduleName));
@@ -45,6 +118,27 @@ class DeploymentDiffer {
 				message.append("%n\tOnly in %s:%n\t\t".formatted(this.groupDeployment.leftName()));
 				message.append(String.join("%n\t\t".formatted(), moduleDiff.onlyInLeft()));
 			}
+			for (CoverageDiff coverageDiff : moduleDiff.coverageDiffs()) {
+				if (!coverageDiff.uncoveredOnlyInRight().isEmpty()) {
+					message.append("%n\tTypes without '%s' entry only in %s:%n\t\t".formatted(coverageDiff.classifier(),
+							this.groupDeployment.rightName()));
+					message.append(String.join("%n\t\t".formatted(), coverageDiff.uncoveredOnlyInRight()));
+				}
+				if (!coverageDiff.uncoveredOnlyInLeft().isEmpty()) {
+					message.append("%n\tTypes without '%s' entry only in %s:%n\t\t".formatted(coverageDiff.classifier(),
+							this.groupDeployment.leftName()));
+					message.append(String.join("%n\t\t".formatted(), coverageDiff.uncoveredOnlyInLeft()));
+				}
+			}
+			for (String classifier : moduleDiff.missingJars()) {
+				String jarType = classifier.isEmpty() ? "main" : "'%s'".formatted(classifier);
+				message.append("%n\tNo %s JAR in %s".formatted(jarType, this.groupDeployment.rightName()));
+			}
+			for (JarDiff jarDiff : moduleDiff.jarDiffs()) {
+				for (String mismatch : jarDiff.mismatches()) {
+					message.append("%n\t%s".formatted(indent(mismatch)));
+				}
+			}
 			PomDiff pomDiff = moduleDiff.pomDiff();
 			if (pomDiff != null && !pomDiff.hasSameEntries()) {
 				if (!pomDiff.pomMismatches().isEmpty()) {
@@ -66,48 +160,183 @@ class DeploymentDiffer {
 							pomDiff.onlyInLeft().stream().map(this::toString).toList()));
 				}
 			}
-			logger.error(message.toString());
+			return message.toString();
 		}
 	}
 
+	private static String indent(String message) {
+		return String.join("%n\t".formatted(), message.lines().toList());
+	}
+
 	private String toString(Dependency dependency) {
 		return "%s:%s:%s - %s %s".formatted(dependency.getGroupId(), dependency.getArtifactId(),
 				dependency.getVersion(), dependency.getScope(), dependency.isOptional() ? "(optional)" : "");
 	}
 
-	private List<ModuleDiff> diffModules(ThrowingFunction<Module, ModuleDiff> moduleDiff) throws IOException {
-		List<Path> leftModules = PathUtils.listDirectoriesIn(this.groupDeployment.leftDirectory());
+	private List<Module> modules(List<String> mismatches) throws IOException {
+		String version = this.groupDeployment.version();
+		ModuleRepository leftRepository = this.groupDeployment.leftRepository();
+		ModuleRepository rightRepository = this.groupDeployment.rightRepository();
+		List<String> leftModules = leftRepository.modules();
 		logger.debug("Found '%s' modules for %s in '%s'".formatted(leftModules.size(), this.groupDeployment.leftName(),
 				this.groupDeployment.leftDirectory()));
-		List<Path> rightModules = PathUtils.listDirectoriesIn(this.groupDeployment.rightDirectory());
+		List<String> rightModules = rightRepository.modules();
 		logger.debug("Found '%s' modules for %s in '%s'".formatted(rightModules.size(),
 				this.groupDeployment.rightName(), this.groupDeployment.rightDirectory()));
+		RenameRules renameRules = this.groupDeployment.deployment().renameRules();
 		List<String> processed = new ArrayList<>();
-		List<ModuleDiff> moduleDiffs = new ArrayList<>();
-		for (Path leftModule : leftModules) {
-			String name = leftModule.getFileName().toString();
-			Path rightModule = findWithFileName(rightModules, name);
-			Module module = new Module(name, leftModule, rightModule);
-			if (rightModule == null) {
-				logger.error("%s does not contain module '%s'".formatted(this.groupDeployment.rightName(), name));
+		List<Module> modules = new ArrayList<>();
+		List<String> onlyInLeft = new ArrayList<>();
+		for (String name : leftModules) {
+			String rightName = renameRules.rightModuleName(name);
+			if (rightModules.contains(rightName)) {
+				modules.add(new Module(name, rightName));
+				processed.add(rightName);
+			}
+			else {
+				onlyInLeft.add(name);
+			}
+		}
+		List<String> onlyInRight = rightModules.stream().filter(name -> !processed.contains(name)).toList();
+		Moves<String> moves = RenameDetector.pair(onlyInLeft, onlyInRight,
+				name -> leftRepository.fingerprint(name, version), name -> rightRepository.fingerprint(name, version));
+		for (Move<String> move : moves.moved()) {
+			modules.add(new Module(move.from(), move.to()));
+		}
+		for (String leftModule : moves.remaining().onlyInLeft()) {
+			mismatches.add("%s does not contain module '%s'".formatted(this.groupDeployment.rightName(), leftModule));
+		}
+		if (!moves.remaining().onlyInRight().isEmpty()) {
+			mismatches.add(
+					"Only in %s: %s".formatted(this.groupDeployment.rightName(), moves.remaining().onlyInRight()));
+		}
+		return modules;
+	}
+
+	private void diffArtifacts(List<Module> modules, List<String> moves, List<String> mismatches)
+			throws IOException {
+		Path leftDirectory = this.groupDeployment.leftDirectory();
+		Path rightDirectory = this.groupDeployment.rightDirectory();
+		if (!Files.isDirectory(leftDirectory) || !Files.isDirectory(rightDirectory)) {
+			logger.debug("Skipping artifact mappings and moves, a snapshot does not hold the content of archives");
+			return;
+		}
+		String version = this.groupDeployment.version();
+		List<Path> mappedLeft = new ArrayList<>();
+		List<Path> mappedRight = new ArrayList<>();
+		for (ArtifactMapping mapping : this.groupDeployment.deployment().renameRules().artifacts()) {
+			Path left = leftDirectory.resolve(mapping.left(version));
+			Path right = rightDirectory.resolve(mapping.right(version));
+			if (Files.isRegularFile(left) && Files.isRegularFile(right)) {
+				logger.info("Diffing mapped artifact '%s' against '%s'".formatted(mapping.left(version),
+						mapping.right(version)));
+				diffArchives(left, right, moves, mismatches);
+				mappedLeft.add(left);
+				mappedRight.add(right);
 			}
 			else {
-				moduleDiffs.add(moduleDiff.apply(module));
+				logger.warn("Artifact mapping '%s' -> '%s' does not match any file".formatted(mapping.left(version),
+						mapping.right(version)));
+			}
+		}
+		List<Path> onlyInLeft = new ArrayList<>();
+		List<Path> onlyInRight = new ArrayList<>();
+		for (Path leftModule : PathUtils.listDirectoriesIn(leftDirectory)) {
+			String name = leftModule.getFileName().toString();
+			Module module = modules.stream()
+				.filter(candidate -> candidate.name().equals(name))
+				.findFirst()
+				.orElse(null);
+			if (module == null || !module.isMoved()) {
+				Path rightModule = (module != null) ? rightDirectory.resolve(module.rightName()) : null;
+				onlyInLeft.addAll(archives(leftModule, rightModule, mappedLeft));
 			}
-			processed.add(name);
 		}
-		List<String> onlyInRight = PathUtils.toFileNames(rightModules)
+		for (Path rightModule : PathUtils.listDirectoriesIn(rightDirectory)) {
+			String name = rightModule.getFileName().toString();
+			Module module = modules.stream()
+				.filter(candidate -> candidate.rightName().equals(name))
+				.findFirst()
+				.orElse(null);
+			if (module == null || !module.isMoved()) {
+				Path leftModule = (module != null) ? leftDirectory.resolve(module.name()) : null;
+				onlyInRight.addAll(archives(rightModule, leftModule, mappedRight));
+			}
+		}
+		Moves<Path> artifactMoves = RenameDetector.pair(onlyInLeft, onlyInRight, RenameDetector::archiveFingerprint);
+		for (Move<Path> move : artifactMoves.moved()) {
+			moves.add("Artifact '%s' in %s has moved to '%s' in %s".formatted(leftDirectory.relativize(move.from()),
+					this.groupDeployment.leftName(), rightDirectory.relativize(move.to()),
+					this.groupDeployment.rightName()));
+			diffArchives(move.from(), move.to(), moves, mismatches);
+		}
+	}
+
+	private List<Path> archives(Path module, Path otherModule, List<Path> excluded) throws IOException {
+		Path versionDirectory = module.resolve(this.groupDeployment.version());
+		if (!Files.isDirectory(versionDirectory)) {
+			return List.of();
+		}
+		Path otherVersionDirectory = (otherModule != null) ? otherModule.resolve(this.groupDeployment.version())
+				: null;
+		return PathUtils.listPaths(versionDirectory, DirectoryModuleRepository::isArchive)
 			.stream()
-			.filter(name -> !processed.contains(name))
+			.filter(archive -> !excluded.contains(archive))
+			.filter(archive -> otherVersionDirectory == null
+					|| !Files.exists(otherVersionDirectory.resolve(archive.getFileName().toString())))
 			.toList();
-		if (!onlyInRight.isEmpty()) {
-			logger.error("Only in %s: %s".formatted(this.groupDeployment.rightName(), onlyInRight));
+	}
+
+	private void diffArchives(Path left, Path right, List<String> moves, List<String> mismatches)
+			throws IOException {
+		String leftName = this.groupDeployment.leftDirectory().relativize(left).toString();
+		String rightName = this.groupDeployment.rightDirectory().relativize(right).toString();
+		ZipDiffer zipDiffer = new ZipDiffer(left, right);
+		Moves<String> entryMoves = RenameDetector.detectEntries(left, right, zipDiffer.diff(MismatchFilter.noop()));
+		if (!entryMoves.moved().isEmpty()) {
+			moves.add("Moved entries between '%s' and '%s':%n\t%s".formatted(leftName, rightName,
+					String.join("%n\t".formatted(), RenameDetector.describe(entryMoves.moved()))));
+		}
+		Diff<String> diff = entryMoves.remaining();
+		if (!diff.hasSameEntries()) {
+			mismatches.add(diff.diffDescription("Mismatch between '%s' and '%s'".formatted(leftName, rightName),
+					() -> "Only in %s (%s)".formatted(this.groupDeployment.leftName(), leftName),
+					() -> "Only in %s (%s)".formatted(this.groupDeployment.rightName(), rightName)));
+		}
+		List<String> contentMismatches = zipDiffer
+			.diffContent(this.groupDeployment.deployment().entryContentComparator());
+		if (!contentMismatches.isEmpty()) {
+			mismatches.add("Content mismatch between '%s' and '%s':%n\t%s".formatted(leftName, rightName,
+					String.join("%n\t".formatted(), contentMismatches)));
 		}
-		return moduleDiffs;
 	}
 
-	private static Path findWithFileName(List<Path> paths, String fileName) {
-		return paths.stream().filter(p -> p.getFileName().toString().equals(fileName)).findFirst().orElse(null);
+	record DeploymentReport(List<ModuleReport> modules, List<String> moves, List<String> mismatches) {
+
+		boolean hasDifferences() {
+			return !this.moves.isEmpty() || !this.mismatches.isEmpty()
+					|| this.modules.stream().anyMatch(report -> !report.sameEntries() || !report.moves().isEmpty());
+		}
+
+		String summary() {
+			long modulesWithDifferences = this.modules.stream().filter(report -> !report.sameEntries()).count();
+			long modulesWithMoves = this.modules.stream().filter(report -> !report.moves().isEmpty()).count();
+			int identicalArtifacts = this.modules.stream().mapToInt(ModuleReport::identicalArtifacts).sum();
+			return ("%s modules, %s with differences, %s with moves, %s byte-identical artifacts, "
+					+ "%s other mismatches, %s other moves")
+				.formatted(this.modules.size(), modulesWithDifferences, modulesWithMoves, identicalArtifacts,
+						this.mismatches.size(), this.moves.size());
+		}
+
+	}
+
+	record ModuleReport(String module, boolean sameEntries, String description, int identicalArtifacts,
+			List<String> moves) {
+
+		String movesDescription() {
+			return "Moves for %s:%n\t%s".formatted(this.module,
+					String.join("%n\t".formatted(), this.moves.stream().map(DeploymentDiffer::indent).toList()));
+		}
 	}
 
 }
@@ -0,0 +1,325 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.nicoll.deployment.diff.DeploymentDiffer.DeploymentReport;
+import net.nicoll.deployment.diff.DeploymentDiffer.ModuleReport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+class DiffServer implements AutoCloseable {
+
+	private static final Log logger = LogFactory.getLog(DiffServer.class);
+
+	private final UnaryOperator<Deployment> customizer;
+
+	private final List<Path> roots;
+
+	private final ThreadPoolExecutor workers;
+
+	private final Map<CacheKey, CompletableFuture<DiffOutcome>> inFlight = new ConcurrentHashMap<>();
+
+	private final Map<CacheKey, DiffResult> results;
+
+	DiffServer(UnaryOperator<Deployment> customizer, List<Path> roots, int workers, int queueCapacity, int cacheSize)
+			throws IOException {
+		this.customizer = customizer;
+		this.roots = new ArrayList<>();
+		for (Path root : roots) {
+			this.roots.add(root.toRealPath());
+		}
+		AtomicInteger threads = new AtomicInteger();
+		this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				runnable -> new Thread(runnable, "diff-worker-" + threads.incrementAndGet()),
+				new ThreadPoolExecutor.AbortPolicy());
+		this.results = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, DiffResult> eldest) {
+				return size() > cacheSize;
+			}
+
+		};
+	}
+
+	void run(String bindAddress, int port) throws IOException, InterruptedException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+		ExecutorService handlers = Executors.newCachedThreadPool();
+		server.createContext("/diff", this::handle);
+		server.setExecutor(handlers);
+		CountDownLatch stopped = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(1);
+			handlers.shutdownNow();
+			close();
+			stopped.countDown();
+		}, "diff-server-shutdown"));
+		server.start();
+		logger.info("Accepting diff requests on %s:%s for %s with %s workers".formatted(bindAddress,
+				server.getAddress().getPort(), this.roots, this.workers.getCorePoolSize()));
+		stopped.await();
+	}
+
+	@Override
+	public void close() {
+		this.workers.shutdownNow();
+	}
+
+	/**
+	 * Diff the specified request. A result of repositories whose files have not changed is
+	 * returned from the cache without queueing a diff, and a request identical to one in
+	 * flight joins it.
+	 * @throws RejectedExecutionException if a diff is required and too many are pending
+	 */
+	DiffOutcome submit(DiffRequest request) throws IOException {
+		Deployment deployment = new Deployment("Left", Paths.get(request.left()), "Right",
+				Paths.get(request.right()), request.version());
+		CacheKey key;
+		try (GroupDeployment target = deployment.resolveGroupId(false, request.groupId())) {
+			key = new CacheKey(request, fingerprint(target.leftDirectory(), target.leftRepository(), request.version()),
+					fingerprint(target.rightDirectory(), target.rightRepository(), request.version()));
+		}
+		synchronized (this.results) {
+			DiffResult cached = this.results.get(key);
+			if (cached != null) {
+				logger.debug("Returning cached diff of %s".formatted(request));
+				return new DiffOutcome(cached, "cached");
+			}
+		}
+		boolean[] started = new boolean[1];
+		CompletableFuture<DiffOutcome> outcome = this.inFlight.computeIfAbsent(key, candidate -> {
+			started[0] = true;
+			return CompletableFuture.supplyAsync(() -> diff(deployment, candidate), this.workers);
+		});
+		if (started[0]) {
+			outcome.whenComplete((result, ex) -> this.inFlight.remove(key, outcome));
+		}
+		else {
+			logger.debug("Joining in-flight diff of %s".formatted(request));
+		}
+		try {
+			DiffOutcome result = outcome.get();
+			return (started[0]) ? result : new DiffOutcome(result.result(), "merged");
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for diff of %s".formatted(request), ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = (ex.getCause() instanceof CompletionException) ? ex.getCause().getCause()
+					: ex.getCause();
+			if (cause instanceof UncheckedIOException uncheckedIOException) {
+				throw uncheckedIOException.getCause();
+			}
+			if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private DiffOutcome diff(Deployment deployment, CacheKey key) {
+		DiffRequest request = key.request();
+		try (GroupDeployment groupDeployment = this.customizer.apply(deployment)
+			.resolveGroupId(false, request.groupId())) {
+			DeploymentReport report = new DeploymentDiffer(groupDeployment).diff();
+			DiffResult result = DiffResult.of(request, report);
+			synchronized (this.results) {
+				this.results.put(key, result);
+			}
+			return new DiffOutcome(result, "computed");
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (!"GET".equals(exchange.getRequestMethod()) && !"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, 405, "Unsupported method %s".formatted(exchange.getRequestMethod()));
+				return;
+			}
+			DiffRequest request;
+			boolean allowed;
+			try {
+				request = DiffRequest.parse(exchange.getRequestURI().getRawQuery());
+				allowed = isAllowed(request.left()) && isAllowed(request.right());
+			}
+			catch (IllegalArgumentException ex) {
+				respond(exchange, 400, ex.getMessage());
+				return;
+			}
+			if (!allowed) {
+				respond(exchange, 403, "Only locations under %s can be diffed".formatted(this.roots));
+				return;
+			}
+			try {
+				DiffOutcome outcome = submit(request);
+				exchange.getResponseHeaders().add("X-Diff-Result", outcome.origin());
+				respond(exchange, 200, outcome.result().report());
+			}
+			catch (RejectedExecutionException ex) {
+				exchange.getResponseHeaders().add("Retry-After", "30");
+				respond(exchange, 503, "Too many pending diffs, try again later");
+			}
+			catch (Exception ex) {
+				logger.error("Failed to diff %s".formatted(request), ex);
+				respond(exchange, 500, "Failed to diff: %s".formatted(ex.getMessage()));
+			}
+		}
+	}
+
+	boolean isAllowed(String location) throws IOException {
+		Path path = Paths.get(location).toAbsolutePath().normalize();
+		if (Files.exists(path)) {
+			path = path.toRealPath();
+		}
+		for (Path root : this.roots) {
+			if (path.startsWith(root)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Return a fingerprint of the files of the specified version, based on their names, sizes
+	 * and last modified times. Archives are not opened, so that a cached result can be looked
+	 * up cheaply. A snapshot is identified by the size and last modified time of its file.
+	 */
+	private static String fingerprint(Path groupDirectory, ModuleRepository repository, String version)
+			throws IOException {
+		List<String> fingerprints = new ArrayList<>();
+		if (Files.isRegularFile(groupDirectory)) {
+			fingerprints.add(digest(sizeAndLastModified(groupDirectory)));
+		}
+		for (String module : repository.modules()) {
+			List<String> files = repository.files(module, version);
+			if (!files.isEmpty()) {
+				StringBuilder content = new StringBuilder(module);
+				for (String file : files.stream().sorted().toList()) {
+					content.append(":").append(file);
+					Path path = groupDirectory.resolve(module).resolve(version).resolve(file);
+					if (Files.isRegularFile(path)) {
+						content.append("@").append(sizeAndLastModified(path));
+					}
+				}
+				fingerprints.add(digest(content.toString()));
+			}
+		}
+		return RenameDetector.combinedFingerprint(fingerprints);
+	}
+
+	private static String sizeAndLastModified(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		return "%s/%s".formatted(attributes.size(), attributes.lastModifiedTime().toMillis());
+	}
+
+	private static String digest(String content) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	record DiffRequest(String left, String right, String groupId, String version) {
+
+		static DiffRequest parse(String query) {
+			Map<String, String> parameters = new HashMap<>();
+			if (query != null) {
+				for (String parameter : query.split("&")) {
+					int separator = parameter.indexOf('=');
+					if (separator != -1) {
+						parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+								URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+					}
+				}
+			}
+			return new DiffRequest(required(parameters, "left"), required(parameters, "right"),
+					required(parameters, "groupId"), required(parameters, "version"));
+		}
+
+		private static String required(Map<String, String> parameters, String name) {
+			String value = parameters.get(name);
+			if (value == null || value.isBlank()) {
+				throw new IllegalArgumentException("Missing '%s' parameter, expected left, right, groupId and version"
+					.formatted(name));
+			}
+			return value;
+		}
+
+	}
+
+	record DiffResult(String report, boolean sameEntries) {
+
+		static DiffResult of(DiffRequest request, DeploymentReport deploymentReport) {
+			StringBuilder report = new StringBuilder("Diffed %s %s: %s".formatted(request.groupId(), request.version(),
+					deploymentReport.summary()));
+			for (ModuleReport moduleReport : deploymentReport.modules()) {
+				if (!moduleReport.sameEntries()) {
+					report.append("%n%s".formatted(moduleReport.description()));
+				}
+				if (!moduleReport.moves().isEmpty()) {
+					report.append("%n%s".formatted(moduleReport.movesDescription()));
+				}
+			}
+			deploymentReport.mismatches().forEach(mismatch -> report.append("%n%s".formatted(mismatch)));
+			deploymentReport.moves().forEach(move -> report.append("%n%s".formatted(move)));
+			return new DiffResult(report.toString(), !deploymentReport.hasDifferences());
+		}
+
+	}
+
+	record DiffOutcome(DiffResult result, String origin) {
+	}
+
+	private record CacheKey(DiffRequest request, String leftFingerprint, String rightFingerprint) {
+	}
+
+}
@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import net.nicoll.deployment.diff.EntryNames.NameCursor;
+
 class DiffUtils {
 
 	static <T> Diff<T> diff(List<T> left, List<T> right, MismatchFilter<T> filter) {
@@ -23,6 +25,36 @@ class DiffUtils {
 		return new Diff<>(onlyInLeft, onlyInRight);
 	}
 
+	static Diff<String> diff(EntryNames left, EntryNames right, MismatchFilter<String> filter) {
+		ByteMismatchFilter byteFilter = ByteMismatchFilter.of(filter);
+		List<String> onlyInLeft = new ArrayList<>();
+		List<String> onlyInRight = new ArrayList<>();
+		NameCursor leftNames = left.cursor();
+		NameCursor rightNames = right.cursor();
+		boolean hasLeft = leftNames.next();
+		boolean hasRight = rightNames.next();
+		while (hasLeft || hasRight) {
+			int comparison = (!hasLeft) ? 1 : (!hasRight) ? -1 : leftNames.compareTo(rightNames);
+			if (comparison == 0) {
+				hasLeft = leftNames.next();
+				hasRight = rightNames.next();
+			}
+			else if (comparison < 0) {
+				if (!byteFilter.ignoreInLeft(leftNames.bytes(), 0, leftNames.length())) {
+					onlyInLeft.add(leftNames.name());
+				}
+				hasLeft = leftNames.next();
+			}
+			else {
+				if (!byteFilter.ignoreInRight(rightNames.bytes(), 0, rightNames.length())) {
+					onlyInRight.add(rightNames.name());
+				}
+				hasRight = rightNames.next();
+			}
+		}
+		return new Diff<>(onlyInLeft, onlyInRight);
+	}
+
 	record Diff<T>(List<T> onlyInLeft, List<T> onlyInRight) {
 
 		public boolean hasSameEntries() {
@@ -0,0 +1,87 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+
+class DirectoryModuleIndex implements ModuleIndex {
+
+	private final Path groupDirectory;
+
+	private final Map<String, Path> jars;
+
+	private final Map<String, ArchiveEntries> entries = new HashMap<>();
+
+	DirectoryModuleIndex(Path groupDirectory, Map<String, Path> jars) {
+		this.groupDirectory = groupDirectory;
+		this.jars = jars;
+	}
+
+	@Override
+	public Set<String> classifiers() {
+		return this.jars.keySet();
+	}
+
+	@Override
+	public String location(String classifier) {
+		return this.groupDirectory.relativize(jar(classifier)).toString().replace('\\', '/');
+	}
+
+	@Override
+	public Path jar(String classifier) {
+		Path jar = this.jars.get(classifier);
+		if (jar == null) {
+			throw new IllegalArgumentException("No JAR with classifier '%s'".formatted(classifier));
+		}
+		return jar;
+	}
+
+	@Override
+	public long size(String classifier) throws IOException {
+		return Files.size(jar(classifier));
+	}
+
+	@Override
+	public String digest(String classifier) throws IOException {
+		return ContentUtils.digest(jar(classifier));
+	}
+
+	@Override
+	public ArchiveEntries archiveEntries(String classifier) throws IOException {
+		Path jar = jar(classifier);
+		try {
+			return this.entries.computeIfAbsent(classifier, key -> readEntries(jar));
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	@Override
+	public Map<Object, Object> manifest(String classifier) throws IOException {
+		Attributes attributes = JarDiffUtils.readManifest(jar(classifier)).getMainAttributes();
+		Map<Object, Object> manifest = new HashMap<>();
+		attributes.forEach((key, value) -> manifest.put(key.toString(), value.toString()));
+		return manifest;
+	}
+
+	@Override
+	public ArtifactSketch sketch(String classifier, double falsePositiveRate) throws IOException {
+		return ArtifactSketch.read(jar(classifier), falsePositiveRate, () -> archiveEntries(classifier));
+	}
+
+	private static ArchiveEntries readEntries(Path file) {
+		try {
+			return ArchiveEntries.read(file);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
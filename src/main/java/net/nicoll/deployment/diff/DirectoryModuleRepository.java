@@ -0,0 +1,101 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.Dependency;
+
+import org.springframework.util.FileSystemUtils;
+
+class DirectoryModuleRepository implements ModuleRepository {
+
+	private final Path root;
+
+	private final Path groupDirectory;
+
+	private final String groupId;
+
+	private Path localRepository;
+
+	DirectoryModuleRepository(Path root, Path groupDirectory, String groupId) {
+		this.root = root;
+		this.groupDirectory = groupDirectory;
+		this.groupId = groupId;
+	}
+
+	@Override
+	public List<String> modules() throws IOException {
+		return PathUtils.toFileNames(PathUtils.listDirectoriesIn(this.groupDirectory));
+	}
+
+	@Override
+	public List<String> files(String module, String version) throws IOException {
+		Path versionDirectory = this.groupDirectory.resolve(module).resolve(version);
+		if (!Files.isDirectory(versionDirectory)) {
+			return List.of();
+		}
+		return PathUtils.toFileNames(PathUtils.listFilesAndDirectoriesIn(versionDirectory));
+	}
+
+	@Override
+	public ModuleIndex index(String module, String version) throws IOException {
+		Path versionDirectory = this.groupDirectory.resolve(module).resolve(version);
+		Map<String, Path> jars = new HashMap<>();
+		if (Files.isDirectory(versionDirectory)) {
+			ModuleDiffer.getJars(versionDirectory, module, version)
+				.forEach((classifier, jar) -> jars.put(classifier, jar.path()));
+		}
+		return new DirectoryModuleIndex(this.groupDirectory, jars);
+	}
+
+	@Override
+	public List<Dependency> dependencies(String module, String version, List<String> scopes) throws IOException {
+		MavenDependencyResolver resolver = new MavenDependencyResolver(localRepository());
+		return PomDiffer.resolveDependencies(resolver, this.groupId, module, version, scopes);
+	}
+
+	private synchronized Path localRepository() throws IOException {
+		if (this.localRepository == null) {
+			this.localRepository = PomDiffer.prepareLocalRepository(this.root);
+		}
+		return this.localRepository;
+	}
+
+	/**
+	 * Delete the copy of the repository that dependencies have been resolved against, if any.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.localRepository != null) {
+			FileSystemUtils.deleteRecursively(this.localRepository);
+			this.localRepository = null;
+		}
+	}
+
+	@Override
+	public String fingerprint(String module, String version) throws IOException {
+		Path versionDirectory = this.groupDirectory.resolve(module).resolve(version);
+		if (!Files.isDirectory(versionDirectory)) {
+			return null;
+		}
+		List<String> fingerprints = new ArrayList<>();
+		for (Path archive : PathUtils.listPaths(versionDirectory, DirectoryModuleRepository::isArchive)) {
+			String fingerprint = RenameDetector.archiveFingerprint(archive);
+			if (fingerprint != null) {
+				fingerprints.add(fingerprint);
+			}
+		}
+		return RenameDetector.combinedFingerprint(fingerprints);
+	}
+
+	static boolean isArchive(Path candidate) {
+		String fileName = candidate.getFileName().toString();
+		return fileName.endsWith(".jar") || fileName.endsWith(".zip");
+	}
+
+}
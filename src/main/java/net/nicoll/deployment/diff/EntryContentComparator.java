@@ -0,0 +1,147 @@
+package net.nicoll.deployment.diff;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import net.nicoll.deployment.diff.ArchivePool.Lease;
+
+class EntryContentComparator {
+
+	private static final List<String> TEXT_EXTENSIONS = List.of(".html", ".htm", ".css", ".js", ".properties", ".xml",
+			".xsd", ".txt", ".json", ".yml", ".yaml", ".md", ".adoc");
+
+	private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+	private static final int MAX_BUFFERED_LENGTH = 8 * MAX_LINE_LENGTH;
+
+	private static final EntryContentComparator NONE = new EntryContentComparator(name -> false, List.of());
+
+	private final Predicate<String> textEntry;
+
+	private final List<ContentNormalizer> normalizers;
+
+	EntryContentComparator(Predicate<String> textEntry, List<ContentNormalizer> normalizers) {
+		this.textEntry = textEntry;
+		this.normalizers = normalizers;
+	}
+
+	static EntryContentComparator none() {
+		return NONE;
+	}
+
+	static EntryContentComparator defaults() {
+		return new EntryContentComparator(name -> TEXT_EXTENSIONS.stream().anyMatch(name::endsWith),
+				List.of(ContentNormalizer.lineEndings(), ContentNormalizer.timestamps(),
+						ContentNormalizer.whitespace()));
+	}
+
+	List<String> diff(Path left, EntryNames leftNames, Path right, EntryNames rightNames) throws IOException {
+		if (this == NONE) {
+			return List.of();
+		}
+		List<String> mismatches = new ArrayList<>();
+		try (Lease leftLease = ArchivePool.shared().acquire(left);
+				Lease rightLease = ArchivePool.shared().acquire(right)) {
+			ZipFile leftZip = leftLease.zipFile();
+			ZipFile rightZip = rightLease.zipFile();
+			for (String name : leftNames) {
+				if (!this.textEntry.test(name) || !rightNames.contains(name)) {
+					continue;
+				}
+				ZipEntry leftEntry = leftZip.getEntry(name);
+				ZipEntry rightEntry = rightZip.getEntry(name);
+				if (leftEntry == null || rightEntry == null || leftEntry.isDirectory()
+						|| hasSameRawContent(leftEntry, rightEntry)) {
+					continue;
+				}
+				if (!Arrays.equals(hash(leftLease, leftEntry), hash(rightLease, rightEntry))) {
+					mismatches.add(name);
+				}
+			}
+		}
+		return mismatches;
+	}
+
+	private static boolean hasSameRawContent(ZipEntry left, ZipEntry right) {
+		return left.getCrc() != -1 && left.getCrc() == right.getCrc() && left.getSize() == right.getSize();
+	}
+
+	/**
+	 * Hash the normalized lines of the specified entry. A line whose content exceeds
+	 * {@link #MAX_LINE_LENGTH} characters is normalized in pieces that are cut on its
+	 * non-whitespace characters: before the first whitespace once that many have been read,
+	 * or after twice that many. The cuts of two lines that only differ by whitespace or line
+	 * endings are then at the same place, and so are their normalized pieces. A line is also
+	 * cut after {@link #MAX_BUFFERED_LENGTH} characters to bound memory.
+	 */
+	private byte[] hash(Lease lease, ZipEntry entry) throws IOException {
+		MessageDigest digest = newDigest();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(lease.getInputStream(entry), StandardCharsets.UTF_8))) {
+			StringBuilder line = new StringBuilder();
+			int contentLength = 0;
+			int current;
+			while ((current = reader.read()) != -1) {
+				boolean whitespace = Character.isWhitespace(current);
+				if (whitespace && contentLength >= MAX_LINE_LENGTH) {
+					update(digest, line);
+					contentLength = 0;
+				}
+				line.append((char) current);
+				if (current == '\r') {
+					reader.mark(1);
+					if (reader.read() == '\n') {
+						line.append('\n');
+					}
+					else {
+						reader.reset();
+					}
+				}
+				if (current == '\n' || current == '\r') {
+					update(digest, line);
+					contentLength = 0;
+				}
+				else if ((!whitespace && ++contentLength >= 2 * MAX_LINE_LENGTH)
+						|| line.length() >= MAX_BUFFERED_LENGTH) {
+					update(digest, line);
+					contentLength = 0;
+				}
+			}
+			update(digest, line);
+		}
+		return digest.digest();
+	}
+
+	private void update(MessageDigest digest, StringBuilder line) {
+		if (line.isEmpty()) {
+			return;
+		}
+		String normalized = line.toString();
+		for (ContentNormalizer normalizer : this.normalizers) {
+			normalized = normalizer.normalize(normalized);
+		}
+		digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+		line.setLength(0);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+}
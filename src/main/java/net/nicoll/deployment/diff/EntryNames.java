@@ -0,0 +1,342 @@
+package net.nicoll.deployment.diff;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Set of archive entry names, sorted by their UTF-8 bytes and front-coded in blocks of {@value #BLOCK_SIZE}
+ * names: the first name of a block is stored in full and the following ones only store
+ * the suffix that differs from the previous name. The encoded names are either held on the
+ * heap or read in place from a {@link #readFrom(ByteBuffer) buffer}, such as a mapped
+ * snapshot.
+ */
+final class EntryNames implements Iterable<String> {
+
+	private static final Log logger = LogFactory.getLog(EntryNames.class);
+
+	private static final int BLOCK_SIZE = 16;
+
+	private final ByteBuffer data;
+
+	private final IntBuffer blocks;
+
+	private final int size;
+
+	private EntryNames(ByteBuffer data, IntBuffer blocks, int size) {
+		this.data = data;
+		this.blocks = blocks;
+		this.size = size;
+	}
+
+	static EntryNames read(Path file) throws IOException {
+		CentralDirectory centralDirectory = CentralDirectory.read(file);
+		byte[][] names = new byte[centralDirectory.size()][];
+		Arrays.setAll(names, centralDirectory::name);
+		EntryNames entryNames = encode(names);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Indexed %s entries of '%s' in %s bytes, %s bytes as a list".formatted(entryNames.size(),
+					file.getFileName(), entryNames.sizeInBytes(), listSizeInBytes(entryNames)));
+		}
+		return entryNames;
+	}
+
+	static EntryNames of(Collection<String> names) {
+		byte[][] encodedNames = new byte[names.size()][];
+		int index = 0;
+		for (String name : names) {
+			encodedNames[index++] = name.getBytes(StandardCharsets.UTF_8);
+		}
+		return encode(encodedNames);
+	}
+
+	private static EntryNames encode(byte[][] names) {
+		Arrays.sort(names, Arrays::compareUnsigned);
+		Encoder encoder = new Encoder(names.length);
+		for (int i = 0; i < names.length; i++) {
+			encoder.add(names[i]);
+			names[i] = null;
+		}
+		return encoder.build();
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	boolean contains(String name) {
+		return indexOf(name) != -1;
+	}
+
+	int indexOf(String name) {
+		byte[] target = name.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = this.blocks.limit() - 1;
+		int block = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = new NameCursor(this.blocks.get(middle), 1).compareNext(target);
+			if (comparison == 0) {
+				return middle * BLOCK_SIZE;
+			}
+			if (comparison < 0) {
+				block = middle;
+				low = middle + 1;
+			}
+			else {
+				high = middle - 1;
+			}
+		}
+		if (block == -1) {
+			return -1;
+		}
+		NameCursor cursor = new NameCursor(this.blocks.get(block),
+				Math.min(BLOCK_SIZE, this.size - block * BLOCK_SIZE));
+		int index = block * BLOCK_SIZE;
+		while (cursor.next()) {
+			int comparison = cursor.compareTo(target);
+			if (comparison >= 0) {
+				return (comparison == 0) ? index : -1;
+			}
+			index++;
+		}
+		return -1;
+	}
+
+	List<String> toList() {
+		List<String> names = new ArrayList<>(this.size);
+		forEach(names::add);
+		return names;
+	}
+
+	/**
+	 * Return the retained size of this instance when its encoded names are held on the heap,
+	 * with compressed oops.
+	 */
+	long sizeInBytes() {
+		return 24 + align(16 + this.data.limit()) + align(16 + 4L * this.blocks.limit());
+	}
+
+	/**
+	 * Return the retained size of the specified names held as {@link String} instances in an
+	 * {@link ArrayList} of the same size, with compressed oops and compact strings.
+	 */
+	static long listSizeInBytes(Iterable<String> names) {
+		long size = 24;
+		int count = 0;
+		for (String name : names) {
+			boolean latin1 = name.chars().allMatch(c -> c <= 0xFF);
+			size += 24 + align(16 + (latin1 ? name.length() : 2L * name.length()));
+			count++;
+		}
+		return size + align(16 + 4L * count);
+	}
+
+	NameCursor cursor() {
+		return new NameCursor(0, this.size);
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		NameCursor cursor = cursor();
+		return new Iterator<>() {
+
+			private boolean hasNext = cursor.next();
+
+			@Override
+			public boolean hasNext() {
+				return this.hasNext;
+			}
+
+			@Override
+			public String next() {
+				if (!this.hasNext) {
+					throw new NoSuchElementException();
+				}
+				String name = cursor.name();
+				this.hasNext = cursor.next();
+				return name;
+			}
+
+		};
+	}
+
+	void writeTo(DataOutput out) throws IOException {
+		out.writeInt(this.size);
+		byte[] data = new byte[this.data.limit()];
+		this.data.get(0, data);
+		out.writeInt(data.length);
+		out.write(data);
+		out.writeInt(this.blocks.limit());
+		for (int i = 0; i < this.blocks.limit(); i++) {
+			out.writeInt(this.blocks.get(i));
+		}
+	}
+
+	/**
+	 * Read names {@linkplain #writeTo(DataOutput) written} at the position of the specified
+	 * buffer, and move the buffer past them. The names are not copied: the returned instance
+	 * reads them from views of the buffer.
+	 */
+	static EntryNames readFrom(ByteBuffer buffer) {
+		int size = buffer.getInt();
+		ByteBuffer data = slice(buffer, buffer.getInt());
+		IntBuffer blocks = slice(buffer, 4 * buffer.getInt()).asIntBuffer();
+		return new EntryNames(data, blocks, size);
+	}
+
+	/**
+	 * Return a view of the specified number of bytes at the position of the buffer, and move
+	 * the buffer past them.
+	 */
+	static ByteBuffer slice(ByteBuffer buffer, int length) {
+		ByteBuffer slice = buffer.slice(buffer.position(), length).order(buffer.order());
+		buffer.position(buffer.position() + length);
+		return slice;
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7;
+	}
+
+	static final class Encoder {
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		private int[] blocks;
+
+		private byte[] previous;
+
+		private int size;
+
+		Encoder(int expectedSize) {
+			this.blocks = new int[Math.max(1, (expectedSize + BLOCK_SIZE - 1) / BLOCK_SIZE)];
+		}
+
+		void add(byte[] name) {
+			int prefix = 0;
+			if (this.size % BLOCK_SIZE == 0) {
+				int block = this.size / BLOCK_SIZE;
+				if (block == this.blocks.length) {
+					this.blocks = Arrays.copyOf(this.blocks, 2 * this.blocks.length);
+				}
+				this.blocks[block] = this.out.size();
+			}
+			else {
+				int mismatch = Arrays.mismatch(this.previous, name);
+				prefix = (mismatch != -1) ? mismatch : name.length;
+			}
+			if (this.previous != null && Arrays.compareUnsigned(this.previous, name) > 0) {
+				throw new IllegalArgumentException("Entry names must be added in UTF-8 byte order");
+			}
+			writeVarInt(prefix);
+			writeVarInt(name.length - prefix);
+			this.out.write(name, prefix, name.length - prefix);
+			this.previous = name;
+			this.size++;
+		}
+
+		EntryNames build() {
+			return new EntryNames(ByteBuffer.wrap(this.out.toByteArray()),
+					IntBuffer.wrap(Arrays.copyOf(this.blocks, (this.size + BLOCK_SIZE - 1) / BLOCK_SIZE)), this.size);
+		}
+
+		private void writeVarInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				this.out.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.out.write(value);
+		}
+
+	}
+
+	final class NameCursor {
+
+		private int position;
+
+		private int remaining;
+
+		private byte[] buffer = new byte[64];
+
+		private int length;
+
+		private NameCursor(int position, int count) {
+			this.position = position;
+			this.remaining = count;
+		}
+
+		boolean next() {
+			if (this.remaining == 0) {
+				return false;
+			}
+			this.remaining--;
+			int prefix = readVarInt();
+			int suffix = readVarInt();
+			this.length = prefix + suffix;
+			if (this.length > this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, Math.max(this.length, this.buffer.length * 2));
+			}
+			EntryNames.this.data.get(this.position, this.buffer, prefix, suffix);
+			this.position += suffix;
+			return true;
+		}
+
+		byte[] bytes() {
+			return this.buffer;
+		}
+
+		int length() {
+			return this.length;
+		}
+
+		String name() {
+			return new String(this.buffer, 0, this.length, StandardCharsets.UTF_8);
+		}
+
+		int compareTo(byte[] name) {
+			return Arrays.compareUnsigned(this.buffer, 0, this.length, name, 0, name.length);
+		}
+
+		int compareTo(NameCursor other) {
+			return Arrays.compareUnsigned(this.buffer, 0, this.length, other.buffer, 0, other.length);
+		}
+
+		private int compareNext(byte[] name) {
+			next();
+			return compareTo(name);
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte current;
+			do {
+				current = EntryNames.this.data.get(this.position++);
+				value |= (current & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((current & 0x80) != 0);
+			return value;
+		}
+
+	}
+
+}
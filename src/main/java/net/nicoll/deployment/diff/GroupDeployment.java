@@ -1,8 +1,18 @@
 package net.nicoll.deployment.diff;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.nio.file.Path;
 
-record GroupDeployment(Deployment deployment, Path leftDirectory, Path rightDirectory, String groupId) {
+record GroupDeployment(Deployment deployment, Path leftDirectory, Path rightDirectory, String groupId,
+		ModuleRepository leftRepository, ModuleRepository rightRepository) implements Closeable {
+
+	GroupDeployment(Deployment deployment, Path leftDirectory, Path rightDirectory, String groupId)
+			throws IOException {
+		this(deployment, leftDirectory, rightDirectory, groupId,
+				ModuleRepository.of(deployment.leftDirectory(), leftDirectory, groupId),
+				ModuleRepository.of(deployment.rightDirectory(), rightDirectory, groupId));
+	}
 
 	Path leftRoot() {
 		return this.deployment.leftDirectory();
@@ -24,4 +34,14 @@ record GroupDeployment(Deployment deployment, Path leftDirectory, Path rightDire
 		return this.deployment.version();
 	}
 
+	@Override
+	public void close() throws IOException {
+		try {
+			this.leftRepository.close();
+		}
+		finally {
+			this.rightRepository.close();
+		}
+	}
+
 }
@@ -4,12 +4,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -17,7 +13,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
 
+import net.nicoll.deployment.diff.ArchivePool.Lease;
 import net.nicoll.deployment.diff.JarDiffUtils.ManifestDiff.ValueMismatch;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,8 +29,12 @@ abstract class JarDiffUtils {
 	static ManifestDiff diffManifest(Path leftJar, Path rightJar) throws IOException {
 		Manifest leftManifest = JarDiffUtils.readManifest(leftJar);
 		Manifest rightManifest = JarDiffUtils.readManifest(rightJar);
-		Map<Object, Object> leftEntries = new HashMap<>(leftManifest.getMainAttributes());
-		Map<Object, Object> rightEntries = new HashMap<>(rightManifest.getMainAttributes());
+		return diffManifest(leftManifest.getMainAttributes(), rightManifest.getMainAttributes());
+	}
+
+	static ManifestDiff diffManifest(Map<Object, Object> leftAttributes, Map<Object, Object> rightAttributes) {
+		Map<Object, Object> leftEntries = new HashMap<>(leftAttributes);
+		Map<Object, Object> rightEntries = new HashMap<>(rightAttributes);
 		List<String> onlyInLeft = new ArrayList<>();
 		List<ValueMismatch> valueMismatches = new ArrayList<>();
 		Iterator<Entry<Object, Object>> it = leftEntries.entrySet().iterator();
@@ -57,20 +59,22 @@ abstract class JarDiffUtils {
 
 	}
 
-	private static Manifest readManifest(Path jarFile) throws IOException {
-		try (FileSystem fs = FileSystems.newFileSystem(jarFile, Collections.emptyMap())) {
-			Path manifestPath = fs.getPath(MANIFEST_LOCATION);
-			try (InputStream is = Files.newInputStream(manifestPath)) {
+	static Manifest readManifest(Path jarFile) throws IOException {
+		try (Lease lease = ArchivePool.shared().acquire(jarFile)) {
+			ZipEntry manifestEntry = lease.zipFile().getEntry(MANIFEST_LOCATION);
+			if (manifestEntry == null) {
+				throw new IllegalStateException("Invalid JAR file '%s', no %s".formatted(jarFile, MANIFEST_LOCATION));
+			}
+			try (InputStream is = lease.getInputStream(manifestEntry)) {
 				Manifest manifest = new Manifest(is);
 				logger.trace("""
 						Reading manifest from '%s':
-						%s""".formatted(manifestPath, toLog(manifest)));
+						%s""".formatted(jarFile, toLog(manifest)));
 				return manifest;
 			}
 			catch (IOException ex) {
-				String type = Files.isRegularFile(manifestPath) ? "JAR file" : "JAR directory structure";
 				throw new IllegalStateException(
-						"Invalid %s '%s', cannot read %s".formatted(type, manifestPath, MANIFEST_LOCATION), ex);
+						"Invalid JAR file '%s', cannot read %s".formatted(jarFile, MANIFEST_LOCATION), ex);
 			}
 		}
 	}
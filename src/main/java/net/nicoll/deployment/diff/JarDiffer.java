@@ -3,52 +3,76 @@ package net.nicoll.deployment.diff;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 
 import net.nicoll.deployment.diff.DiffUtils.Diff;
 import net.nicoll.deployment.diff.JarDiffUtils.ManifestDiff;
+import net.nicoll.deployment.diff.RenameDetector.Moves;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
 class JarDiffer {
 
 	private static final Log logger = LogFactory.getLog(JarDiffer.class);
 
 	private final GroupDeployment groupDeployment;
 
-	private final Path left;
+	private final ModuleIndex leftIndex;
 
-	private final Path right;
+	private final ModuleIndex rightIndex;
 
 	private final String classifier;
 
-	JarDiffer(GroupDeployment groupDeployment, Path left, Path right, String classifier) {
+	JarDiffer(GroupDeployment groupDeployment, ModuleIndex leftIndex, ModuleIndex rightIndex, String classifier) {
 		this.groupDeployment = groupDeployment;
-		this.left = left;
-		this.right = right;
+		this.leftIndex = leftIndex;
+		this.rightIndex = rightIndex;
 		this.classifier = classifier;
 	}
 
-	public void diff(MismatchFilter<String> entriesFilter) throws IOException {
+	public JarDiff diff(MismatchFilter<String> entriesFilter) throws IOException {
 		String jarType = this.classifier.isEmpty() ? "main" : "'%s'".formatted(this.classifier);
+		Path left = this.leftIndex.jar(this.classifier);
+		Path right = this.rightIndex.jar(this.classifier);
+		if (hasSameContent(left, right)) {
+			logger.debug("Identical content for %s JARs, skipping".formatted(jarType));
+			return new JarDiff(this.classifier, true, List.of(), List.of());
+		}
+		List<String> moved = new ArrayList<>();
+		List<String> mismatches = new ArrayList<>();
 		logger.debug("Checking %s JARs".formatted(jarType));
-		Diff<String> entriesDiff = DiffUtils.diff(entries(this.left), entries(this.right), entriesFilter);
+		EntryNames leftEntries = this.leftIndex.entries(this.classifier);
+		EntryNames rightEntries = this.rightIndex.entries(this.classifier);
+		Moves<String> moves = RenameDetector.detectEntries(this.leftIndex, this.rightIndex, this.classifier,
+				DiffUtils.diff(leftEntries, rightEntries, entriesFilter));
+		if (!moves.moved().isEmpty()) {
+			moved.add("Moved entries between %s JARs (%s):%n\t%s".formatted(jarType,
+					this.leftIndex.location(this.classifier),
+					String.join("%n\t".formatted(), RenameDetector.describe(moves.moved()))));
+		}
+		Diff<String> entriesDiff = moves.remaining();
 		if (!entriesDiff.hasSameEntries()) {
-			logger.error(entriesDiff.diffDescription("Mismatch between %s JARs".formatted(jarType),
+			mismatches.add(entriesDiff.diffDescription("Mismatch between %s JARs".formatted(jarType),
 					() -> "Only in %s JAR (%s)".formatted(this.groupDeployment.leftName(),
-							this.groupDeployment.leftDirectory().relativize(this.left)),
-					() -> "Only in %s JAR (%s)".formatted(this.groupDeployment.leftName(),
-							this.groupDeployment.leftDirectory().relativize(this.left))));
+							this.leftIndex.location(this.classifier)),
+					() -> "Only in %s JAR (%s)".formatted(this.groupDeployment.rightName(),
+							this.rightIndex.location(this.classifier))));
 		}
 		else {
 			logger.debug("Identical entries for %s JARs".formatted(jarType));
 		}
-		ManifestDiff manifestDiff = JarDiffUtils.diffManifest(this.left, this.right);
+		if (left != null && right != null) {
+			List<String> contentMismatches = this.groupDeployment.deployment()
+				.entryContentComparator()
+				.diff(left, leftEntries, right, rightEntries);
+			if (!contentMismatches.isEmpty()) {
+				mismatches.add("Content mismatch between %s JARs (%s):%n\t%s".formatted(jarType,
+						this.leftIndex.location(this.classifier),
+						String.join("%n\t".formatted(), contentMismatches)));
+			}
+		}
+		ManifestDiff manifestDiff = JarDiffUtils.diffManifest(this.leftIndex.manifest(this.classifier),
+				this.rightIndex.manifest(this.classifier));
 		if (!manifestDiff.hasSameEntries()) {
 			StringBuilder message = new StringBuilder("Mismatch between manifest of %s JARs:".formatted(jarType));
 			if (!manifestDiff.valueMismatches().isEmpty()) {
@@ -62,32 +86,36 @@ class JarDiffer {
 			}
 			if (!manifestDiff.onlyInRight().isEmpty()) {
 				message.append("%n\tOnly in %s manifest (%s):%n\t\t".formatted(this.groupDeployment.rightName(),
-						this.groupDeployment.rightDirectory().relativize(this.right)));
+						this.rightIndex.location(this.classifier)));
 				message.append(String.join("%n\t\t".formatted(), manifestDiff.onlyInRight()));
 			}
 			if (!manifestDiff.onlyInLeft().isEmpty()) {
 				message.append("%n\tOnly in %s manifest (%s):%n\t\t".formatted(this.groupDeployment.leftName(),
-						this.groupDeployment.leftDirectory().relativize(this.left)));
+						this.leftIndex.location(this.classifier)));
 				message.append(String.join("%n\t\t".formatted(), manifestDiff.onlyInLeft()));
 			}
-			logger.error(message.toString());
+			mismatches.add(message.toString());
 		}
 		else {
 			logger.debug("Identical manifest entries for %s JARs".formatted(jarType));
 		}
+		return new JarDiff(this.classifier, false, moved, mismatches);
 	}
 
-	private static List<String> entries(Path file) throws IOException {
-		assertThat(file).exists().isRegularFile();
-		List<String> names = new ArrayList<>();
-		try (JarFile jarFile = new JarFile(file.toFile())) {
-			Enumeration<JarEntry> jarEntries = jarFile.entries();
-			while (jarEntries.hasMoreElements()) {
-				JarEntry jarEntry = jarEntries.nextElement();
-				names.add(jarEntry.getName());
-			}
+	private boolean hasSameContent(Path left, Path right) throws IOException {
+		if (left != null && right != null) {
+			return ContentUtils.hasSameContent(left, right);
+		}
+		return this.leftIndex.size(this.classifier) == this.rightIndex.size(this.classifier)
+				&& this.leftIndex.digest(this.classifier).equals(this.rightIndex.digest(this.classifier));
+	}
+
+	record JarDiff(String classifier, boolean identical, List<String> moves, List<String> mismatches) {
+
+		boolean hasSameEntries() {
+			return this.mismatches.isEmpty();
 		}
-		return names;
+
 	}
 
 }
@@ -1,6 +1,13 @@
 package net.nicoll.deployment.diff;
 
-import java.nio.file.Path;
+record Module(String name, String rightName) {
+
+	Module(String name) {
+		this(name, name);
+	}
+
+	boolean isMoved() {
+		return !this.name.equals(this.rightName);
+	}
 
-record Module(String name, Path left, Path right) {
 }
@@ -2,13 +2,22 @@ package net.nicoll.deployment.diff;
 
 import java.util.List;
 
+import net.nicoll.deployment.diff.CoverageDiffer.CoverageDiff;
+import net.nicoll.deployment.diff.JarDiffer.JarDiff;
 import net.nicoll.deployment.diff.PomDiffer.PomDiff;
 
-record ModuleDiff(Module module, List<String> onlyInLeft, List<String> onlyInRight, PomDiff pomDiff) {
+record ModuleDiff(Module module, List<String> onlyInLeft, List<String> onlyInRight, PomDiff pomDiff,
+		List<String> identicalArtifacts, List<CoverageDiff> coverageDiffs, List<String> missingJars,
+		List<JarDiff> jarDiffs) {
 
 	boolean hasSameEntries() {
-		return (module.left() != null && module.right() != null) && onlyInLeft.isEmpty() && onlyInRight.isEmpty()
-				&& pomDiff().hasSameEntries();
+		return onlyInLeft.isEmpty() && onlyInRight.isEmpty() && pomDiff().hasSameEntries()
+				&& coverageDiffs.stream().allMatch(CoverageDiff::hasSameEntries) && missingJars.isEmpty()
+				&& jarDiffs.stream().allMatch(JarDiff::hasSameEntries);
+	}
+
+	List<String> moves() {
+		return jarDiffs.stream().flatMap(jarDiff -> jarDiff.moves().stream()).toList();
 	}
 
 }
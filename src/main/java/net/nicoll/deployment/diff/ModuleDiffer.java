@@ -2,13 +2,17 @@ package net.nicoll.deployment.diff;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 import java.util.function.Predicate;
 
+import net.nicoll.deployment.diff.CoverageDiffer.CoverageDiff;
 import net.nicoll.deployment.diff.DiffUtils.Diff;
+import net.nicoll.deployment.diff.JarDiffer.JarDiff;
 import net.nicoll.deployment.diff.PomDiffer.PomDiff;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -21,43 +25,69 @@ class ModuleDiffer {
 
 	private final Module module;
 
-	ModuleDiffer(GroupDeployment groupDeployment, Module module) {
+	private final ProgressReporter progressReporter;
+
+	ModuleDiffer(GroupDeployment groupDeployment, Module module, ProgressReporter progressReporter) {
 		this.groupDeployment = groupDeployment;
 		this.module = module;
+		this.progressReporter = progressReporter;
 	}
 
 	ModuleDiff diff() throws IOException {
 		logger.info("Diffing '%s'".formatted(module.name()));
-		Path leftRoot = module.left().resolve(this.groupDeployment.version());
-		Path rightRoot = module.right().resolve(this.groupDeployment.version());
-		Map<String, Jar> leftJars = getJars(leftRoot, module.name());
-		logger.debug(
-				"Found '%s' JARs for %s in '%s'".formatted(leftJars.size(), this.groupDeployment.leftName(), leftRoot));
-		Map<String, Jar> rightJars = getJars(rightRoot, module.name());
-		logger.debug("Found '%s' JARs for %s in '%s'".formatted(rightJars.size(), this.groupDeployment.rightName(),
-				rightRoot));
-		for (Entry<String, Jar> entry : leftJars.entrySet()) {
-			String classifier = entry.getKey();
-			Jar rightJar = rightJars.get(classifier);
-			if (rightJar != null) {
-				new JarDiffer(this.groupDeployment, entry.getValue().path(), rightJar.path(), classifier)
+		String version = this.groupDeployment.version();
+		ModuleRepository leftRepository = this.groupDeployment.leftRepository();
+		ModuleRepository rightRepository = this.groupDeployment.rightRepository();
+		ModuleIndex leftIndex = leftRepository.index(module.name(), version);
+		logger.debug("Found '%s' JARs for %s in '%s'".formatted(leftIndex.classifiers().size(),
+				this.groupDeployment.leftName(), module.name()));
+		ModuleIndex rightIndex = rightRepository.index(module.rightName(), version);
+		logger.debug("Found '%s' JARs for %s in '%s'".formatted(rightIndex.classifiers().size(),
+				this.groupDeployment.rightName(), module.rightName()));
+		List<String> identicalArtifacts = new ArrayList<>();
+		Set<String> identicalClassifiers = new HashSet<>();
+		List<String> missingJars = new ArrayList<>();
+		List<JarDiff> jarDiffs = new ArrayList<>();
+		for (String classifier : leftIndex.classifiers()) {
+			if (rightIndex.hasClassifier(classifier)) {
+				ArtifactTriage triage = this.groupDeployment.deployment().artifactTriage();
+				if (triage.hasSameEntries(leftIndex, rightIndex, classifier)) {
+					logger.debug("Sketches of '%s' match, skipping".formatted(rightIndex.fileName(classifier)));
+					this.progressReporter.archivesProcessed(2);
+					identicalClassifiers.add(classifier);
+					identicalArtifacts.add(rightIndex.fileName(classifier));
+					continue;
+				}
+				JarDiff jarDiff = new JarDiffer(this.groupDeployment, leftIndex, rightIndex, classifier)
 					.diff(this.groupDeployment.deployment().jarMismatchFilter(classifier));
+				jarDiffs.add(jarDiff);
+				this.progressReporter.archivesProcessed(2);
+				if (jarDiff.identical()) {
+					identicalArtifacts.add(rightIndex.fileName(classifier));
+					identicalClassifiers.add(classifier);
+				}
 			}
 			else {
-				logger.error("No '%s' JAR found for '%s'".formatted(module.name(), classifier));
+				missingJars.add(classifier);
 			}
 		}
+		List<CoverageDiff> coverageDiffs = new CoverageDiffer(leftIndex, rightIndex).diff(identicalClassifiers);
 		logger.debug("Diffing POM definition for '%s'".formatted(module.name()));
-		PomDiff pomDiff = new PomDiffer(this.groupDeployment).diff(module.name());
-		List<String> leftFiles = PathUtils.toFileNames(PathUtils.listFilesAndDirectoriesIn(leftRoot));
-		List<String> rightFiles = PathUtils.toFileNames(PathUtils.listFilesAndDirectoriesIn(rightRoot));
+		PomDiff pomDiff = new PomDiffer(this.groupDeployment).diff(module.name(), module.rightName());
+		this.progressReporter.pomDiffed();
+		List<String> leftFiles = leftRepository.files(module.name(), version);
+		List<String> rightFiles = rightRepository.files(module.rightName(), version)
+			.stream()
+			.map(fileName -> fileName.replace(module.rightName(), module.name()))
+			.toList();
 		Diff<String> filesDiff = DiffUtils.diff(leftFiles, rightFiles,
 				this.groupDeployment.deployment().moduleMismatchFilter());
-		return new ModuleDiff(this.module, filesDiff.onlyInLeft(), filesDiff.onlyInRight(), pomDiff);
+		return new ModuleDiff(this.module, filesDiff.onlyInLeft(), filesDiff.onlyInRight(), pomDiff,
+				identicalArtifacts, coverageDiffs, missingJars, jarDiffs);
 
 	}
 
-	private Map<String, Jar> getJars(Path directory, String moduleName) throws IOException {
+	static Map<String, Jar> getJars(Path directory, String moduleName, String version) throws IOException {
 		Predicate<Path> jarFilter = candidate -> candidate.getFileName().toString().endsWith(".jar");
 		List<Path> jarFiles = PathUtils.listPaths(directory, jarFilter);
 		Map<String, Jar> jars = new HashMap<>();
@@ -66,9 +96,9 @@ class ModuleDiffer {
 			if (!fileName.startsWith(moduleName)) {
 				throw new IllegalStateException("Unexpected jar for '%s': %s".formatted(moduleName, fileName));
 			}
-			int versionIndex = fileName.indexOf(this.groupDeployment.version());
+			int versionIndex = fileName.indexOf(version);
 			int jarIndex = fileName.indexOf(".jar");
-			String endOfFileName = fileName.substring(versionIndex + this.groupDeployment.version().length(), jarIndex);
+			String endOfFileName = fileName.substring(versionIndex + version.length(), jarIndex);
 			String classifier = endOfFileName.startsWith("-") ? endOfFileName.substring(1) : "";
 			jars.put(classifier, new Jar(path, moduleName));
 		});
@@ -0,0 +1,67 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import net.nicoll.deployment.diff.RenameDetector.EntryKey;
+
+interface ModuleIndex {
+
+	Set<String> classifiers();
+
+	default boolean hasClassifier(String classifier) {
+		return classifiers().contains(classifier);
+	}
+
+	/**
+	 * Return the location of the JAR with the specified classifier, relative to the group
+	 * directory.
+	 */
+	String location(String classifier);
+
+	default String fileName(String classifier) {
+		String location = location(classifier);
+		return location.substring(location.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * Return the JAR with the specified classifier, or {@code null} if only its index is
+	 * available.
+	 */
+	Path jar(String classifier);
+
+	long size(String classifier) throws IOException;
+
+	/**
+	 * Return the SHA-256 digest of the JAR with the specified classifier.
+	 */
+	String digest(String classifier) throws IOException;
+
+	/**
+	 * Return the entries of the JAR with the specified classifier, along with the CRC-32 and
+	 * size of each entry, read in a single pass.
+	 */
+	ArchiveEntries archiveEntries(String classifier) throws IOException;
+
+	default EntryNames entries(String classifier) throws IOException {
+		return archiveEntries(classifier).names();
+	}
+
+	/**
+	 * Return the CRC-32 and size of the specified entry, or {@code null} if the entry does not
+	 * exist or has no content.
+	 */
+	default EntryKey entryKey(String classifier, String entry) throws IOException {
+		return archiveEntries(classifier).entryKey(entry);
+	}
+
+	/**
+	 * Return the main attributes of the manifest, keyed by attribute name.
+	 */
+	Map<Object, Object> manifest(String classifier) throws IOException;
+
+	ArtifactSketch sketch(String classifier, double falsePositiveRate) throws IOException;
+
+}
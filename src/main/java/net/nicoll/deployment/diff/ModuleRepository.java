@@ -0,0 +1,46 @@
+package net.nicoll.deployment.diff;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.maven.model.Dependency;
+
+interface ModuleRepository extends Closeable {
+
+	static ModuleRepository of(Path root, Path groupDirectory, String groupId) throws IOException {
+		if (Files.isRegularFile(groupDirectory)) {
+			return RepositorySnapshot.load(groupDirectory);
+		}
+		return new DirectoryModuleRepository(root, groupDirectory, groupId);
+	}
+
+	List<String> modules() throws IOException;
+
+	/**
+	 * Return the names of the files of the specified module version, or an empty list if that
+	 * version has not been published.
+	 */
+	List<String> files(String module, String version) throws IOException;
+
+	ModuleIndex index(String module, String version) throws IOException;
+
+	List<Dependency> dependencies(String module, String version, List<String> scopes) throws IOException;
+
+	/**
+	 * Return a fingerprint of the content of the archives of the specified module version, or
+	 * {@code null} if it has none.
+	 * @see RenameDetector#combinedFingerprint(List)
+	 */
+	String fingerprint(String module, String version) throws IOException;
+
+	/**
+	 * Release the resources that this repository created, such as temporary copies.
+	 */
+	@Override
+	default void close() throws IOException {
+	}
+
+}
@@ -14,6 +14,8 @@ import org.springframework.util.FileSystemUtils;
 
 class PomDiffer {
 
+	static final List<String> DEFAULT_SCOPES = List.of("compile", "compile+runtime", "runtime");
+
 	private final GroupDeployment groupDeployment;
 
 	private final List<String> scopesToInclude;
@@ -27,12 +29,22 @@ class PomDiffer {
 	}
 
 	PomDiffer(GroupDeployment groupDeployment) {
-		this(groupDeployment, List.of("compile", "compile+runtime", "runtime"));
+		this(groupDeployment, DEFAULT_SCOPES);
 	}
 
 	PomDiff diff(String artifactId) throws IOException {
-		List<Dependency> left = resolveDependencies(this.groupDeployment.leftRoot(), artifactId);
-		List<Dependency> right = resolveDependencies(this.groupDeployment.rightRoot(), artifactId);
+		return diff(artifactId, artifactId);
+	}
+
+	PomDiff diff(String leftArtifactId, String rightArtifactId) throws IOException {
+		List<Dependency> left = this.groupDeployment.leftRepository()
+			.dependencies(leftArtifactId, this.groupDeployment.version(), this.scopesToInclude);
+		List<Dependency> right = this.groupDeployment.rightRepository()
+			.dependencies(rightArtifactId, this.groupDeployment.version(), this.scopesToInclude);
+		return diff(left, right, this.filter);
+	}
+
+	static PomDiff diff(List<Dependency> left, List<Dependency> right, MismatchFilter<Dependency> filter) {
 		left = new ArrayList<>(left);
 		right = new ArrayList<>(right);
 		List<PomMismatch> pomMismatches = new ArrayList<>();
@@ -53,7 +65,7 @@ class PomDiffer {
 		return new PomDiff(onlyInLeft, onlyInRight, pomMismatches);
 	}
 
-	private Dependency foundIn(List<Dependency> dependencies, Dependency target) {
+	private static Dependency foundIn(List<Dependency> dependencies, Dependency target) {
 		for (Dependency dependency : dependencies) {
 			if (isSameArtifact(target, dependency)) {
 				return dependency;
@@ -62,13 +74,13 @@ class PomDiffer {
 		return null;
 	}
 
-	private boolean isSameArtifact(Dependency left, Dependency right) {
+	private static boolean isSameArtifact(Dependency left, Dependency right) {
 		return Objects.equals(left.getGroupId(), right.getGroupId())
 				&& Objects.equals(left.getArtifactId(), right.getArtifactId())
 				&& Objects.equals(left.getClassifier(), right.getClassifier());
 	}
 
-	private boolean isSimilarDependency(Dependency left, Dependency right) {
+	private static boolean isSimilarDependency(Dependency left, Dependency right) {
 		return Objects.equals(left.getArtifactId(), right.getArtifactId())
 				&& Objects.equals(left.getGroupId(), right.getGroupId())
 				&& Objects.equals(left.getVersion(), right.getVersion())
@@ -77,14 +89,13 @@ class PomDiffer {
 				&& Objects.equals(left.isOptional(), right.isOptional());
 	}
 
-	private List<Dependency> resolveDependencies(Path localRepository, String artifact) throws IOException {
-		MavenDependencyResolver resolver = new MavenDependencyResolver(prepareLocalRepository(localRepository));
-		List<Dependency> dependencies = resolver.resolveDependencies(this.groupDeployment.groupId(), artifact,
-				this.groupDeployment.version());
-		return dependencies.stream().filter(candidate -> this.scopesToInclude.contains(candidate.getScope())).toList();
+	static List<Dependency> resolveDependencies(MavenDependencyResolver resolver, String groupId, String artifactId,
+			String version, List<String> scopesToInclude) {
+		List<Dependency> dependencies = resolver.resolveDependencies(groupId, artifactId, version);
+		return dependencies.stream().filter(candidate -> scopesToInclude.contains(candidate.getScope())).toList();
 	}
 
-	private Path prepareLocalRepository(Path localRepositoryLocation) throws IOException {
+	static Path prepareLocalRepository(Path localRepositoryLocation) throws IOException {
 		Path tempDirectory = Files.createTempDirectory("deployment-repository-diff");
 		FileSystemUtils.copyRecursively(localRepositoryLocation, tempDirectory);
 		return tempDirectory;
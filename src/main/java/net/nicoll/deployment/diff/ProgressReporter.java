@@ -0,0 +1,142 @@
+package net.nicoll.deployment.diff;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+class ProgressReporter implements AutoCloseable {
+
+	private static final Log logger = LogFactory.getLog(ProgressReporter.class);
+
+	private final Duration interval;
+
+	private final AtomicInteger totalModules = new AtomicInteger();
+
+	private final LongAdder modules = new LongAdder();
+
+	private final LongAdder archives = new LongAdder();
+
+	private final LongAdder poms = new LongAdder();
+
+	private final LongAdder localBytes = new LongAdder();
+
+	private final LongAdder remoteBytes = new LongAdder();
+
+	private volatile long startNanos = System.nanoTime();
+
+	private boolean started;
+
+	private long lastBytes;
+
+	private long lastNanos;
+
+	private ScheduledExecutorService scheduler;
+
+	ProgressReporter(Duration interval) {
+		this.interval = interval;
+	}
+
+	/**
+	 * Start reporting progress, counting the bytes that the current thread reads from then
+	 * on. The reporter must be closed by the same thread.
+	 */
+	synchronized void start(int totalModules) {
+		this.totalModules.set(totalModules);
+		this.localBytes.reset();
+		ReadRateLimiter.countReads(this.localBytes);
+		this.startNanos = System.nanoTime();
+		this.lastNanos = this.startNanos;
+		this.lastBytes = 0;
+		this.started = true;
+		if (this.interval.isZero() || this.interval.isNegative()) {
+			return;
+		}
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "progress-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long millis = this.interval.toMillis();
+		this.scheduler.scheduleAtFixedRate(this::report, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	void modulesAssigned(int count) {
+		this.totalModules.addAndGet(count);
+	}
+
+	void modulesDiffed(int count) {
+		this.modules.add(count);
+	}
+
+	void archivesProcessed(int count) {
+		this.archives.add(count);
+	}
+
+	void remoteProgress(long archives, long bytes) {
+		this.archives.add(archives);
+		this.remoteBytes.add(bytes);
+	}
+
+	void pomDiffed() {
+		this.poms.increment();
+	}
+
+	long archives() {
+		return this.archives.sum();
+	}
+
+	long bytesRead() {
+		return this.remoteBytes.sum() + this.localBytes.sum();
+	}
+
+	private synchronized void report() {
+		long now = System.nanoTime();
+		long modules = this.modules.sum();
+		long bytes = bytesRead();
+		int total = this.totalModules.get();
+		double elapsedSeconds = (now - this.startNanos) / 1_000_000_000d;
+		double intervalSeconds = (now - this.lastNanos) / 1_000_000_000d;
+		double throughput = (intervalSeconds > 0) ? (bytes - this.lastBytes) / intervalSeconds : 0;
+		this.lastBytes = bytes;
+		this.lastNanos = now;
+		String eta = (modules > 0 && modules < total)
+				? formatDuration(elapsedSeconds / modules * (total - modules)) : "unknown";
+		logger.info("Progress: %s/%s modules, %s archives, %s POMs, %s read, %s/s, ETA %s".formatted(modules, total,
+				this.archives.sum(), this.poms.sum(), formatBytes(bytes), formatBytes((long) throughput), eta));
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+		if (ReadRateLimiter.readCounter() == this.localBytes) {
+			ReadRateLimiter.countReads(null);
+		}
+		if (this.started) {
+			this.started = false;
+			report();
+		}
+	}
+
+	private static String formatBytes(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+		return "%.1f %sB".formatted(bytes / (double) (1L << (unit * 10)), "KMGTPE".charAt(unit - 1));
+	}
+
+	private static String formatDuration(double seconds) {
+		long rounded = Math.round(seconds);
+		return "%dm%02ds".formatted(rounded / 60, rounded % 60);
+	}
+
+}
@@ -0,0 +1,106 @@
+package net.nicoll.deployment.diff;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+class ReadRateLimiter {
+
+	private static final ThreadLocal<LongAdder> readCounter = new ThreadLocal<>();
+
+	private final long bytesPerSecond;
+
+	private long nextAvailableNanos;
+
+	ReadRateLimiter(long bytesPerSecond) {
+		this.bytesPerSecond = bytesPerSecond;
+		this.nextAvailableNanos = System.nanoTime();
+	}
+
+	static ReadRateLimiter unlimited() {
+		return new ReadRateLimiter(0);
+	}
+
+	/**
+	 * Count the bytes that the current thread reads through any limiter in the specified
+	 * counter, or stop counting them if it is {@code null}.
+	 */
+	static void countReads(LongAdder counter) {
+		if (counter != null) {
+			readCounter.set(counter);
+		}
+		else {
+			readCounter.remove();
+		}
+	}
+
+	/**
+	 * Return the counter of the current thread, so that reads it hands over to other threads
+	 * can be {@linkplain #acquire(long, LongAdder) counted} in it, or {@code null}.
+	 */
+	static LongAdder readCounter() {
+		return readCounter.get();
+	}
+
+	/**
+	 * Acquire the specified number of bytes that have been read by the current thread.
+	 */
+	void acquire(long bytes) throws InterruptedIOException {
+		acquire(bytes, readCounter.get());
+	}
+
+	void acquire(long bytes, LongAdder counter) throws InterruptedIOException {
+		if (bytes <= 0) {
+			return;
+		}
+		if (counter != null) {
+			counter.add(bytes);
+		}
+		if (this.bytesPerSecond <= 0) {
+			return;
+		}
+		long waitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long start = Math.max(now, this.nextAvailableNanos);
+			this.nextAvailableNanos = start + (long) (bytes * 1_000_000_000d / this.bytesPerSecond);
+			waitNanos = start - now;
+		}
+		if (waitNanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while throttling reads");
+			}
+		}
+	}
+
+	InputStream throttle(InputStream in) {
+		LongAdder counter = readCounter.get();
+		return new FilterInputStream(in) {
+
+			@Override
+			public int read() throws IOException {
+				int value = super.read();
+				if (value != -1) {
+					acquire(1, counter);
+				}
+				return value;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int read = super.read(b, off, len);
+				acquire(read, counter);
+				return read;
+			}
+
+		};
+	}
+
+}
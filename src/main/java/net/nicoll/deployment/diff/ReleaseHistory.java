@@ -0,0 +1,144 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.nicoll.deployment.diff.DiffUtils.Diff;
+import net.nicoll.deployment.diff.JarDiffUtils.ManifestDiff;
+import net.nicoll.deployment.diff.JarDiffUtils.ManifestDiff.ValueMismatch;
+import net.nicoll.deployment.diff.PomDiffer.PomDiff;
+import net.nicoll.deployment.diff.PomDiffer.PomMismatch;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.maven.model.Dependency;
+
+class ReleaseHistory {
+
+	private static final Log logger = LogFactory.getLog(ReleaseHistory.class);
+
+	private final ModuleRepository repository;
+
+	private final List<VersionPair> pairs;
+
+	ReleaseHistory(ModuleRepository repository, List<VersionPair> pairs) {
+		this.repository = repository;
+		this.pairs = pairs;
+	}
+
+	static List<VersionPair> consecutivePairs(List<String> versions) {
+		List<VersionPair> pairs = new ArrayList<>();
+		for (int i = 1; i < versions.size(); i++) {
+			pairs.add(new VersionPair(versions.get(i - 1), versions.get(i)));
+		}
+		return pairs;
+	}
+
+	/**
+	 * Diff each module across the version pairs, indexing each version of a module once.
+	 * @return the release history of each module
+	 */
+	List<String> diff() throws IOException {
+		List<String> modules = this.repository.modules();
+		logger.info("Tracking %s version pairs of %s modules".formatted(this.pairs.size(), modules.size()));
+		List<String> timelines = new ArrayList<>();
+		for (String module : modules) {
+			String timeline = diffModule(module);
+			logger.info(timeline);
+			timelines.add(timeline);
+		}
+		return timelines;
+	}
+
+	private String diffModule(String module) throws IOException {
+		Set<String> versions = new LinkedHashSet<>();
+		this.pairs.forEach(pair -> {
+			versions.add(pair.from());
+			versions.add(pair.to());
+		});
+		Map<String, ModuleIndex> indexes = new HashMap<>();
+		Map<String, List<Dependency>> dependencies = new HashMap<>();
+		for (String version : versions) {
+			if (!this.repository.files(module, version).isEmpty()) {
+				indexes.put(version, this.repository.index(module, version));
+				dependencies.put(version, this.repository.dependencies(module, version, PomDiffer.DEFAULT_SCOPES));
+			}
+		}
+		StringBuilder timeline = new StringBuilder("Release history of '%s':".formatted(module));
+		for (VersionPair pair : this.pairs) {
+			timeline.append("%n\t%s -> %s:".formatted(pair.from(), pair.to()));
+			ModuleIndex from = indexes.get(pair.from());
+			ModuleIndex to = indexes.get(pair.to());
+			if (from == null || to == null) {
+				timeline.append((from == null && to == null) ? " not published"
+						: (from == null) ? " module added" : " module removed");
+				continue;
+			}
+			List<String> changes = changes(pair, from, to);
+			PomDiff pomDiff = PomDiffer.diff(dependencies.get(pair.from()), dependencies.get(pair.to()),
+					MismatchFilter.noop());
+			pomDiff.pomMismatches()
+				.stream()
+				.map(PomMismatch::toDescription)
+				.forEach(description -> changes.add("dependency changed %s".formatted(description)));
+			pomDiff.onlyInRight()
+				.forEach(dependency -> changes.add("dependency added %s".formatted(toString(dependency))));
+			pomDiff.onlyInLeft()
+				.forEach(dependency -> changes.add("dependency removed %s".formatted(toString(dependency))));
+			if (changes.isEmpty()) {
+				timeline.append(" no changes");
+			}
+			changes.forEach(change -> timeline.append("%n\t\t%s".formatted(change)));
+		}
+		return timeline.toString();
+	}
+
+	private List<String> changes(VersionPair pair, ModuleIndex from, ModuleIndex to) throws IOException {
+		List<String> changes = new ArrayList<>();
+		Set<String> classifiers = new TreeSet<>(from.classifiers());
+		classifiers.addAll(to.classifiers());
+		for (String classifier : classifiers) {
+			String jarType = classifier.isEmpty() ? "main" : "'%s'".formatted(classifier);
+			if (!from.hasClassifier(classifier) || !to.hasClassifier(classifier)) {
+				changes.add("%s JAR %s".formatted(jarType, from.hasClassifier(classifier) ? "removed" : "added"));
+				continue;
+			}
+			Diff<String> entriesDiff = DiffUtils.diff(from.entries(classifier), to.entries(classifier),
+					MismatchFilter.noop());
+			entriesDiff.onlyInRight().forEach(entry -> changes.add("%s JAR added '%s'".formatted(jarType, entry)));
+			entriesDiff.onlyInLeft().forEach(entry -> changes.add("%s JAR removed '%s'".formatted(jarType, entry)));
+			ManifestDiff manifestDiff = JarDiffUtils.diffManifest(from.manifest(classifier), to.manifest(classifier));
+			for (ValueMismatch valueMismatch : manifestDiff.valueMismatches()) {
+				changes.add("%s manifest %s".formatted(jarType, valueMismatch.toDescription(pair.from(), pair.to())));
+			}
+			manifestDiff.onlyInRight()
+				.forEach(key -> changes.add("%s manifest added '%s'".formatted(jarType, key)));
+			manifestDiff.onlyInLeft()
+				.forEach(key -> changes.add("%s manifest removed '%s'".formatted(jarType, key)));
+		}
+		return changes;
+	}
+
+	private String toString(Dependency dependency) {
+		return "%s:%s:%s - %s".formatted(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion(),
+				dependency.getScope());
+	}
+
+	record VersionPair(String from, String to) {
+
+		static VersionPair parse(String value) {
+			String[] versions = value.split(":");
+			if (versions.length != 2) {
+				throw new IllegalArgumentException("Invalid version pair '%s', expected from:to".formatted(value));
+			}
+			return new VersionPair(versions[0], versions[1]);
+		}
+
+	}
+
+}
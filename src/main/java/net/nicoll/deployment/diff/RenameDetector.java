@@ -0,0 +1,182 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import net.nicoll.deployment.diff.ArchivePool.Lease;
+import net.nicoll.deployment.diff.DiffUtils.Diff;
+
+import org.springframework.util.function.ThrowingFunction;
+
+abstract class RenameDetector {
+
+	static <T> Moves<T> pair(List<T> onlyInLeft, List<T> onlyInRight, ThrowingFunction<T, Object> fingerprint) {
+		return pair(onlyInLeft, onlyInRight, fingerprint, fingerprint);
+	}
+
+	static <T> Moves<T> pair(List<T> onlyInLeft, List<T> onlyInRight, ThrowingFunction<T, Object> leftFingerprint,
+			ThrowingFunction<T, Object> rightFingerprint) {
+		Map<Object, Deque<Integer>> buckets = new HashMap<>();
+		for (int i = 0; i < onlyInRight.size(); i++) {
+			Object key = rightFingerprint.apply(onlyInRight.get(i));
+			if (key != null) {
+				buckets.computeIfAbsent(key, k -> new ArrayDeque<>()).add(i);
+			}
+		}
+		if (buckets.isEmpty()) {
+			return new Moves<>(List.of(), new Diff<>(onlyInLeft, onlyInRight));
+		}
+		List<Move<T>> moved = new ArrayList<>();
+		List<T> remainingLeft = new ArrayList<>();
+		boolean[] paired = new boolean[onlyInRight.size()];
+		for (T candidate : onlyInLeft) {
+			Object key = leftFingerprint.apply(candidate);
+			Deque<Integer> bucket = (key != null) ? buckets.get(key) : null;
+			if (bucket != null && !bucket.isEmpty()) {
+				int match = bucket.poll();
+				moved.add(new Move<>(candidate, onlyInRight.get(match)));
+				paired[match] = true;
+			}
+			else {
+				remainingLeft.add(candidate);
+			}
+		}
+		List<T> remainingRight = new ArrayList<>(onlyInRight.size() - moved.size());
+		for (int i = 0; i < onlyInRight.size(); i++) {
+			if (!paired[i]) {
+				remainingRight.add(onlyInRight.get(i));
+			}
+		}
+		return new Moves<>(moved, new Diff<>(remainingLeft, remainingRight));
+	}
+
+	static Moves<String> detectEntries(Path left, Path right, Diff<String> entriesDiff) throws IOException {
+		if (entriesDiff.onlyInLeft().isEmpty() || entriesDiff.onlyInRight().isEmpty()) {
+			return new Moves<>(List.of(), entriesDiff);
+		}
+		try (Lease leftLease = ArchivePool.shared().acquire(left);
+				Lease rightLease = ArchivePool.shared().acquire(right)) {
+			ZipFile leftZip = leftLease.zipFile();
+			ZipFile rightZip = rightLease.zipFile();
+			return pair(entriesDiff.onlyInLeft(), entriesDiff.onlyInRight(), name -> entryKey(leftZip.getEntry(name)),
+					name -> entryKey(rightZip.getEntry(name)));
+		}
+	}
+
+	static Moves<String> detectEntries(ModuleIndex left, ModuleIndex right, String classifier,
+			Diff<String> entriesDiff) throws IOException {
+		if (entriesDiff.onlyInLeft().isEmpty() || entriesDiff.onlyInRight().isEmpty()) {
+			return new Moves<>(List.of(), entriesDiff);
+		}
+		Path leftJar = left.jar(classifier);
+		Path rightJar = right.jar(classifier);
+		if (leftJar != null && rightJar != null) {
+			return detectEntries(leftJar, rightJar, entriesDiff);
+		}
+		return pair(entriesDiff.onlyInLeft(), entriesDiff.onlyInRight(), name -> left.entryKey(classifier, name),
+				name -> right.entryKey(classifier, name));
+	}
+
+	static String archiveFingerprint(Path archive) throws IOException {
+		List<Long> keys = new ArrayList<>();
+		try (Lease lease = ArchivePool.shared().acquire(archive)) {
+			Enumeration<? extends ZipEntry> entries = lease.zipFile().entries();
+			while (entries.hasMoreElements()) {
+				EntryKey key = entryKey(entries.nextElement());
+				if (key != null) {
+					keys.add((key.crc() << 32) ^ key.size());
+				}
+			}
+		}
+		long[] sorted = keys.stream().mapToLong(Long::longValue).sorted().toArray();
+		return (sorted.length > 0) ? digest(sorted) : null;
+	}
+
+	static String combinedFingerprint(List<String> fingerprints) {
+		if (fingerprints.isEmpty()) {
+			return null;
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			fingerprints.stream().sorted().forEach(fingerprint -> digest.update(HexFormat.of().parseHex(fingerprint)));
+			return HexFormat.of().formatHex(Arrays.copyOf(digest.digest(), 16));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	static List<String> describe(List<Move<String>> moves) {
+		Map<String, Integer> grouped = new LinkedHashMap<>();
+		for (Move<String> move : moves) {
+			String fromName = fileName(move.from());
+			String toName = fileName(move.to());
+			String description = (fromName.equals(toName))
+					? "%s -> %s".formatted(parent(move.from()), parent(move.to()))
+					: "%s -> %s".formatted(move.from(), move.to());
+			grouped.merge(description, 1, Integer::sum);
+		}
+		return grouped.entrySet()
+			.stream()
+			.map(entry -> (entry.getValue() > 1) ? "%s (%s entries)".formatted(entry.getKey(), entry.getValue())
+					: entry.getKey())
+			.toList();
+	}
+
+	static EntryKey entryKey(ZipEntry entry) {
+		if (entry == null || entry.isDirectory() || entry.getSize() <= 0 || entry.getCrc() == -1) {
+			return null;
+		}
+		return new EntryKey(entry.getCrc(), entry.getSize());
+	}
+
+	private static String parent(String name) {
+		int index = name.lastIndexOf('/');
+		return (index != -1) ? name.substring(0, index + 1) : "/";
+	}
+
+	private static String fileName(String name) {
+		return name.substring(name.lastIndexOf('/') + 1);
+	}
+
+	private static String digest(long[] keys) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8];
+			for (long key : keys) {
+				for (int i = 0; i < 8; i++) {
+					buffer[i] = (byte) (key >>> (56 - 8 * i));
+				}
+				digest.update(buffer);
+			}
+			return HexFormat.of().formatHex(Arrays.copyOf(digest.digest(), 16));
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		}
+	}
+
+	record EntryKey(long crc, long size) {
+	}
+
+	record Move<T>(T from, T to) {
+	}
+
+	record Moves<T>(List<Move<T>> moved, Diff<T> remaining) {
+	}
+
+}
@@ -0,0 +1,42 @@
+package net.nicoll.deployment.diff;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+record RenameRules(Map<String, String> modules, List<ArtifactMapping> artifacts) {
+
+	static RenameRules none() {
+		return new RenameRules(Map.of(), List.of());
+	}
+
+	String rightModuleName(String leftModuleName) {
+		return this.modules.getOrDefault(leftModuleName, leftModuleName);
+	}
+
+	RenameRules withModule(String leftModuleName, String rightModuleName) {
+		Map<String, String> modules = new HashMap<>(this.modules);
+		modules.put(leftModuleName, rightModuleName);
+		return new RenameRules(modules, this.artifacts);
+	}
+
+	RenameRules withArtifact(String leftArtifact, String rightArtifact) {
+		List<ArtifactMapping> artifacts = new ArrayList<>(this.artifacts);
+		artifacts.add(new ArtifactMapping(leftArtifact, rightArtifact));
+		return new RenameRules(this.modules, artifacts);
+	}
+
+	record ArtifactMapping(String left, String right) {
+
+		String left(String version) {
+			return this.left.replace("{version}", version);
+		}
+
+		String right(String version) {
+			return this.right.replace("{version}", version);
+		}
+
+	}
+
+}
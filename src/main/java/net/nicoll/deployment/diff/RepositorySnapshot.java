@@ -0,0 +1,380 @@
+package net.nicoll.deployment.diff;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.maven.model.Dependency;
+
+final class RepositorySnapshot implements ModuleRepository {
+
+	static final int MAGIC = 0x44525353;
+
+	static final int FORMAT_VERSION = 1;
+
+	private static final Log logger = LogFactory.getLog(RepositorySnapshot.class);
+
+	private static final Map<Path, RepositorySnapshot> snapshots = new ConcurrentHashMap<>();
+
+	private final Path file;
+
+	private final BasicFileAttributes attributes;
+
+	private final ByteBuffer buffer;
+
+	private final String groupId;
+
+	private final String version;
+
+	private final Map<String, Integer> offsets = new LinkedHashMap<>();
+
+	private final Map<String, ModuleRecord> modules = new ConcurrentHashMap<>();
+
+	private RepositorySnapshot(Path file, BasicFileAttributes attributes, ByteBuffer buffer) {
+		this.file = file;
+		this.attributes = attributes;
+		this.buffer = buffer;
+		ByteBuffer header = buffer.duplicate();
+		if (header.remaining() < 12 || header.getInt() != MAGIC) {
+			throw new IllegalStateException("'%s' is not a repository snapshot".formatted(file));
+		}
+		int formatVersion = header.getInt();
+		if (formatVersion != FORMAT_VERSION) {
+			throw new IllegalStateException("Unsupported format version %s for snapshot '%s', expected %s"
+				.formatted(formatVersion, file, FORMAT_VERSION));
+		}
+		this.groupId = readString(header);
+		this.version = readString(header);
+		ByteBuffer table = buffer.duplicate().position(buffer.getInt(buffer.limit() - 4));
+		int moduleCount = table.getInt();
+		for (int i = 0; i < moduleCount; i++) {
+			this.offsets.put(readString(table), table.getInt());
+		}
+	}
+
+	static RepositorySnapshot load(Path file) throws IOException {
+		Path key = file.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		try {
+			return snapshots.compute(key,
+					(path, snapshot) -> (snapshot != null && snapshot.isCurrent(attributes)) ? snapshot
+							: map(path, attributes));
+		}
+		catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private static RepositorySnapshot map(Path file, BasicFileAttributes attributes) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			RepositorySnapshot snapshot = new RepositorySnapshot(file, attributes,
+					channel.map(MapMode.READ_ONLY, 0, channel.size()));
+			logger.debug("Mapped snapshot of %s modules of %s %s from '%s'".formatted(snapshot.offsets.size(),
+					snapshot.groupId, snapshot.version, file));
+			return snapshot;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private boolean isCurrent(BasicFileAttributes attributes) {
+		return this.attributes.size() == attributes.size()
+				&& this.attributes.lastModifiedTime().equals(attributes.lastModifiedTime());
+	}
+
+	static void export(ModuleRepository repository, String groupId, String version, Path target)
+			throws IOException {
+		Map<String, Integer> offsets = new LinkedHashMap<>();
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			writeString(out, groupId);
+			writeString(out, version);
+			for (String module : repository.modules()) {
+				List<String> files = repository.files(module, version);
+				if (files.isEmpty()) {
+					logger.debug("Module '%s' has no %s version, skipping".formatted(module, version));
+					continue;
+				}
+				logger.info("Exporting '%s'".formatted(module));
+				offsets.put(module, position(out, groupId, version));
+				writeModule(out, repository, module, version, files);
+			}
+			int tableOffset = position(out, groupId, version);
+			out.writeInt(offsets.size());
+			for (Entry<String, Integer> entry : offsets.entrySet()) {
+				writeString(out, entry.getKey());
+				out.writeInt(entry.getValue());
+			}
+			out.writeInt(tableOffset);
+			out.flush();
+			position(out, groupId, version);
+		}
+		catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(target);
+			throw ex;
+		}
+		logger.info("Exported %s modules of %s %s to '%s' (%s bytes)".formatted(offsets.size(), groupId, version,
+				target, Files.size(target)));
+	}
+
+	/**
+	 * Return the current position of the snapshot being written. A snapshot is mapped in a
+	 * single buffer, so its size and offsets must fit in an {@code int}: the counter of
+	 * {@link DataOutputStream} stops at {@link Integer#MAX_VALUE} once it has overflowed.
+	 */
+	private static int position(DataOutputStream out, String groupId, String version) {
+		int position = out.size();
+		if (position == Integer.MAX_VALUE) {
+			throw new IllegalStateException(
+					"Snapshot of %s %s exceeds the %s bytes limit".formatted(groupId, version, Integer.MAX_VALUE));
+		}
+		return position;
+	}
+
+	private static void writeModule(DataOutput out, ModuleRepository repository, String module, String version,
+			List<String> files) throws IOException {
+		writeString(out, repository.fingerprint(module, version));
+		out.writeInt(files.size());
+		for (String file : files) {
+			writeString(out, file);
+		}
+		List<Dependency> dependencies = repository.dependencies(module, version, PomDiffer.DEFAULT_SCOPES);
+		out.writeInt(dependencies.size());
+		for (Dependency dependency : dependencies) {
+			writeString(out, dependency.getGroupId());
+			writeString(out, dependency.getArtifactId());
+			writeString(out, dependency.getVersion());
+			writeString(out, dependency.getClassifier());
+			writeString(out, dependency.getType());
+			writeString(out, dependency.getScope());
+			out.writeBoolean(dependency.isOptional());
+		}
+		ModuleIndex index = repository.index(module, version);
+		List<String> classifiers = index.classifiers().stream().sorted().toList();
+		out.writeInt(classifiers.size());
+		for (String classifier : classifiers) {
+			writeString(out, classifier);
+			writeString(out, index.location(classifier));
+			out.writeLong(index.size(classifier));
+			writeString(out, index.digest(classifier));
+			Map<Object, Object> manifest = index.manifest(classifier);
+			out.writeInt(manifest.size());
+			for (Entry<Object, Object> attribute : manifest.entrySet()) {
+				writeString(out, attribute.getKey().toString());
+				writeString(out, attribute.getValue().toString());
+			}
+			index.archiveEntries(classifier).writeTo(out);
+		}
+	}
+
+	String groupId() {
+		return this.groupId;
+	}
+
+	String version() {
+		return this.version;
+	}
+
+	@Override
+	public List<String> modules() {
+		return List.copyOf(this.offsets.keySet());
+	}
+
+	@Override
+	public List<String> files(String module, String version) {
+		ModuleRecord record = module(module, version);
+		return (record != null) ? record.files() : List.of();
+	}
+
+	@Override
+	public ModuleIndex index(String module, String version) {
+		ModuleRecord record = module(module, version);
+		return new SnapshotModuleIndex((record != null) ? record.archives() : Map.of());
+	}
+
+	@Override
+	public List<Dependency> dependencies(String module, String version, List<String> scopes) {
+		ModuleRecord record = module(module, version);
+		if (record == null) {
+			return List.of();
+		}
+		return record.dependencies().stream().filter(candidate -> scopes.contains(candidate.getScope())).toList();
+	}
+
+	@Override
+	public String fingerprint(String module, String version) {
+		ModuleRecord record = module(module, version);
+		return (record != null) ? record.fingerprint() : null;
+	}
+
+	private ModuleRecord module(String module, String version) {
+		if (!this.version.equals(version)) {
+			throw new IllegalArgumentException(
+					"Snapshot '%s' is for version %s, not %s".formatted(this.file, this.version, version));
+		}
+		Integer offset = this.offsets.get(module);
+		if (offset == null) {
+			return null;
+		}
+		return this.modules.computeIfAbsent(module, name -> readModule(this.buffer.duplicate().position(offset)));
+	}
+
+	private static ModuleRecord readModule(ByteBuffer in) {
+		String fingerprint = readString(in);
+		List<String> files = new ArrayList<>();
+		int fileCount = in.getInt();
+		for (int i = 0; i < fileCount; i++) {
+			files.add(readString(in));
+		}
+		List<Dependency> dependencies = new ArrayList<>();
+		int dependencyCount = in.getInt();
+		for (int i = 0; i < dependencyCount; i++) {
+			Dependency dependency = new Dependency();
+			dependency.setGroupId(readString(in));
+			dependency.setArtifactId(readString(in));
+			dependency.setVersion(readString(in));
+			dependency.setClassifier(readString(in));
+			dependency.setType(readString(in));
+			dependency.setScope(readString(in));
+			dependency.setOptional(in.get() != 0);
+			dependencies.add(dependency);
+		}
+		Map<String, ArchiveRecord> archives = new LinkedHashMap<>();
+		int archiveCount = in.getInt();
+		for (int i = 0; i < archiveCount; i++) {
+			String classifier = readString(in);
+			String location = readString(in);
+			long size = in.getLong();
+			String digest = readString(in);
+			Map<Object, Object> manifest = new LinkedHashMap<>();
+			int attributeCount = in.getInt();
+			for (int j = 0; j < attributeCount; j++) {
+				manifest.put(readString(in), readString(in));
+			}
+			archives.put(classifier,
+					new ArchiveRecord(location, size, digest, manifest, ArchiveEntries.readFrom(in)));
+		}
+		return new ModuleRecord(fingerprint, files, dependencies, archives);
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private record ModuleRecord(String fingerprint, List<String> files, List<Dependency> dependencies,
+			Map<String, ArchiveRecord> archives) {
+	}
+
+	private record ArchiveRecord(String location, long size, String digest, Map<Object, Object> manifest,
+			ArchiveEntries entries, Map<Double, ArtifactSketch> sketches) {
+
+		ArchiveRecord(String location, long size, String digest, Map<Object, Object> manifest,
+				ArchiveEntries entries) {
+			this(location, size, digest, manifest, entries, new ConcurrentHashMap<>());
+		}
+
+		ArtifactSketch sketch(double falsePositiveRate) {
+			return this.sketches.computeIfAbsent(falsePositiveRate,
+					key -> ArtifactSketch.of(this.entries, falsePositiveRate));
+		}
+
+	}
+
+	private static final class SnapshotModuleIndex implements ModuleIndex {
+
+		private final Map<String, ArchiveRecord> archives;
+
+		private SnapshotModuleIndex(Map<String, ArchiveRecord> archives) {
+			this.archives = archives;
+		}
+
+		@Override
+		public Set<String> classifiers() {
+			return this.archives.keySet();
+		}
+
+		@Override
+		public String location(String classifier) {
+			return archive(classifier).location();
+		}
+
+		@Override
+		public Path jar(String classifier) {
+			archive(classifier);
+			return null;
+		}
+
+		@Override
+		public long size(String classifier) {
+			return archive(classifier).size();
+		}
+
+		@Override
+		public String digest(String classifier) {
+			return archive(classifier).digest();
+		}
+
+		@Override
+		public ArchiveEntries archiveEntries(String classifier) {
+			return archive(classifier).entries();
+		}
+
+		@Override
+		public Map<Object, Object> manifest(String classifier) {
+			return archive(classifier).manifest();
+		}
+
+		@Override
+		public ArtifactSketch sketch(String classifier, double falsePositiveRate) {
+			return archive(classifier).sketch(falsePositiveRate);
+		}
+
+		private ArchiveRecord archive(String classifier) {
+			ArchiveRecord archive = this.archives.get(classifier);
+			if (archive == null) {
+				throw new IllegalArgumentException("No JAR with classifier '%s'".formatted(classifier));
+			}
+			return archive;
+		}
+
+	}
+
+}
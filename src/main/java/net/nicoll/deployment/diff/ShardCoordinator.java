@@ -0,0 +1,275 @@
+package net.nicoll.deployment.diff;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.nicoll.deployment.diff.DeploymentDiffer.ModuleReport;
+import net.nicoll.deployment.diff.ShardProtocol.IndexedReport;
+import net.nicoll.deployment.diff.ShardProtocol.Shard;
+import net.nicoll.deployment.diff.ShardProtocol.ShardModule;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+class ShardCoordinator {
+
+	private static final Log logger = LogFactory.getLog(ShardCoordinator.class);
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private final List<String> workerArguments;
+
+	private final int localWorkers;
+
+	private final int port;
+
+	private final int shards;
+
+	private final Duration shardTimeout;
+
+	/**
+	 * Create a coordinator.
+	 * @param shardTimeout the time without any message from a worker, heartbeats included,
+	 * after which its shard is reassigned
+	 */
+	ShardCoordinator(List<String> workerArguments, int localWorkers, int port, int shards, Duration shardTimeout) {
+		if (shardTimeout.compareTo(ShardProtocol.HEARTBEAT_INTERVAL.multipliedBy(2)) < 0) {
+			throw new IllegalArgumentException("Shard timeout must be at least %ss, got %s"
+				.formatted(ShardProtocol.HEARTBEAT_INTERVAL.multipliedBy(2).toSeconds(), shardTimeout));
+		}
+		this.workerArguments = workerArguments;
+		this.localWorkers = localWorkers;
+		this.port = port;
+		this.shards = shards;
+		this.shardTimeout = shardTimeout;
+	}
+
+	List<ModuleReport> diff(List<Module> modules, ProgressReporter progressReporter) throws IOException {
+		List<Shard> shards = shard(modules);
+		Coordination coordination = new Coordination(shards, modules.size(), progressReporter);
+		try (ServerSocket serverSocket = new ServerSocket(this.port)) {
+			logger.info("Coordinating %s shards of %s modules on port %s".formatted(shards.size(), modules.size(),
+					serverSocket.getLocalPort()));
+			Thread acceptor = new Thread(() -> accept(serverSocket, coordination), "shard-coordinator");
+			acceptor.setDaemon(true);
+			acceptor.start();
+			List<Process> processes = startLocalWorkers(serverSocket.getLocalPort());
+			try {
+				coordination.await(processes, this.port == 0);
+			}
+			finally {
+				processes.forEach(Process::destroy);
+			}
+		}
+		return Arrays.asList(coordination.reports);
+	}
+
+	private List<Shard> shard(List<Module> modules) {
+		int count = Math.max(1, Math.min(this.shards, modules.size()));
+		List<List<ShardModule>> shardModules = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			shardModules.add(new ArrayList<>());
+		}
+		int shardSize = Math.max(1, (modules.size() + count - 1) / count);
+		for (int i = 0; i < modules.size(); i++) {
+			shardModules.get(i / shardSize).add(new ShardModule(i, modules.get(i).name(), modules.get(i).rightName()));
+		}
+		List<Shard> shards = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			if (!shardModules.get(i).isEmpty()) {
+				shards.add(new Shard(i, shardModules.get(i), 1));
+			}
+		}
+		return shards;
+	}
+
+	private List<Process> startLocalWorkers(int coordinatorPort) throws IOException {
+		List<String> command = new ArrayList<>(javaCommand());
+		command.addAll(this.workerArguments);
+		command.add("--worker=localhost:%s".formatted(coordinatorPort));
+		List<Process> processes = new ArrayList<>();
+		for (int i = 0; i < this.localWorkers; i++) {
+			processes.add(new ProcessBuilder(command).inheritIO().start());
+		}
+		logger.debug("Started %s local workers with %s".formatted(processes.size(), command));
+		return processes;
+	}
+
+	private static List<String> javaCommand() {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmOptions(ManagementFactory.getRuntimeMXBean().getInputArguments()));
+		String classPath = System.getProperty("java.class.path");
+		if (!classPath.contains(File.pathSeparator) && classPath.endsWith(".jar")) {
+			command.addAll(List.of("-jar", classPath));
+		}
+		else {
+			command.addAll(List.of("-cp", classPath, Application.class.getName()));
+		}
+		return command;
+	}
+
+	/**
+	 * Return the options of this JVM that workers should run with, such as the CDS archive
+	 * and {@code spring.aot.enabled} of the launcher. Dumping an archive and debugging are
+	 * not passed on as workers would compete for the same file or port.
+	 */
+	static List<String> jvmOptions(List<String> inputArguments) {
+		return inputArguments.stream()
+			.filter(option -> !option.startsWith("-XX:ArchiveClassesAtExit") && !option.startsWith("-agentlib:jdwp"))
+			.toList();
+	}
+
+	private void accept(ServerSocket serverSocket, Coordination coordination) {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				Thread worker = new Thread(() -> serve(socket, coordination),
+						"shard-worker-" + socket.getRemoteSocketAddress());
+				worker.setDaemon(true);
+				worker.start();
+			}
+			catch (IOException ex) {
+				if (!serverSocket.isClosed()) {
+					logger.warn("Failed to accept worker connection", ex);
+				}
+			}
+		}
+	}
+
+	private void serve(Socket socket, Coordination coordination) {
+		coordination.activeWorkers.incrementAndGet();
+		logger.debug("Worker connected from %s".formatted(socket.getRemoteSocketAddress()));
+		try (socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, this.shardTimeout.toMillis()));
+			while (coordination.completed.getCount() > 0) {
+				Shard shard = coordination.pending.poll(1, TimeUnit.SECONDS);
+				if (shard == null) {
+					continue;
+				}
+				try {
+					coordination.complete(runShard(shard, in, out));
+				}
+				catch (IOException | RuntimeException ex) {
+					coordination.reassign(shard, socket, ex);
+					return;
+				}
+			}
+			ShardProtocol.writeStop(out);
+		}
+		catch (IOException ex) {
+			logger.debug("Failed to release worker %s".formatted(socket.getRemoteSocketAddress()), ex);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			coordination.activeWorkers.decrementAndGet();
+		}
+	}
+
+	private List<IndexedReport> runShard(Shard shard, DataInputStream in, DataOutputStream out) throws IOException {
+		ShardProtocol.writeShard(out, shard);
+		List<IndexedReport> reports = new ArrayList<>();
+		while (true) {
+			byte command = in.readByte();
+			if (command == ShardProtocol.HEARTBEAT) {
+				continue;
+			}
+			if (command == ShardProtocol.MODULE) {
+				IndexedReport report = ShardProtocol.readModule(in);
+				logger.debug("Received result for module '%s'".formatted(report.report().module()));
+				reports.add(report);
+			}
+			else if (command == ShardProtocol.DONE && in.readInt() == shard.id()
+					&& reports.size() == shard.modules().size()) {
+				return reports;
+			}
+			else {
+				throw new IllegalStateException("Unexpected response from worker for shard %s".formatted(shard.id()));
+			}
+		}
+	}
+
+	private static class Coordination {
+
+		private final BlockingQueue<Shard> pending;
+
+		private final CountDownLatch completed;
+
+		private final ModuleReport[] reports;
+
+		private final AtomicInteger activeWorkers = new AtomicInteger();
+
+		private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+		private final ProgressReporter progressReporter;
+
+		Coordination(List<Shard> shards, int modules, ProgressReporter progressReporter) {
+			this.pending = new LinkedBlockingQueue<>(shards);
+			this.completed = new CountDownLatch(shards.size());
+			this.reports = new ModuleReport[modules];
+			this.progressReporter = progressReporter;
+		}
+
+		void complete(List<IndexedReport> shardReports) {
+			for (IndexedReport report : shardReports) {
+				this.reports[report.index()] = report.report();
+			}
+			this.progressReporter.modulesDiffed(shardReports.size());
+			this.progressReporter.remoteProgress(shardReports.stream().mapToLong(IndexedReport::archives).sum(),
+					shardReports.stream().mapToLong(IndexedReport::bytes).sum());
+			this.completed.countDown();
+		}
+
+		void reassign(Shard shard, Socket socket, Exception ex) {
+			if (shard.attempt() >= MAX_ATTEMPTS) {
+				this.failure.compareAndSet(null, new IllegalStateException(
+						"Shard %s failed after %s attempts".formatted(shard.id(), shard.attempt()), ex));
+				return;
+			}
+			logger.warn("Worker %s failed on shard %s, reassigning".formatted(socket.getRemoteSocketAddress(),
+					shard.id()), ex);
+			this.pending.add(shard.retry());
+		}
+
+		void await(List<Process> processes, boolean localOnly) throws IOException {
+			try {
+				while (!this.completed.await(1, TimeUnit.SECONDS)) {
+					RuntimeException ex = this.failure.get();
+					if (ex != null) {
+						throw ex;
+					}
+					if (localOnly && this.activeWorkers.get() == 0 && processes.stream().noneMatch(Process::isAlive)) {
+						throw new IllegalStateException("All workers have exited before completing the diff");
+					}
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for workers", ex);
+			}
+		}
+
+	}
+
+}
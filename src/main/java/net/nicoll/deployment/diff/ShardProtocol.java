@@ -0,0 +1,134 @@
+package net.nicoll.deployment.diff;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.nicoll.deployment.diff.DeploymentDiffer.ModuleReport;
+
+abstract class ShardProtocol {
+
+	static final byte SHARD = 1;
+
+	static final byte STOP = 2;
+
+	static final byte MODULE = 3;
+
+	static final byte DONE = 4;
+
+	static final byte HEARTBEAT = 5;
+
+	/**
+	 * Interval at which a worker signals that it is alive, including while it diffs a module.
+	 */
+	static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(5);
+
+	static void writeShard(DataOutputStream out, Shard shard) throws IOException {
+		out.writeByte(SHARD);
+		out.writeInt(shard.id());
+		out.writeInt(shard.modules().size());
+		for (ShardModule module : shard.modules()) {
+			out.writeInt(module.index());
+			writeString(out, module.name());
+			writeString(out, module.rightName());
+		}
+		out.flush();
+	}
+
+	static Shard readShard(DataInputStream in) throws IOException {
+		int id = in.readInt();
+		int size = in.readInt();
+		List<ShardModule> modules = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			modules.add(new ShardModule(in.readInt(), readString(in), readString(in)));
+		}
+		return new Shard(id, modules, 1);
+	}
+
+	static void writeStop(DataOutputStream out) throws IOException {
+		out.writeByte(STOP);
+		out.flush();
+	}
+
+	static void writeModule(DataOutputStream out, IndexedReport indexedReport) throws IOException {
+		ModuleReport report = indexedReport.report();
+		out.writeByte(MODULE);
+		out.writeInt(indexedReport.index());
+		writeString(out, report.module());
+		out.writeBoolean(report.sameEntries());
+		writeString(out, report.description());
+		out.writeInt(report.identicalArtifacts());
+		out.writeInt(report.moves().size());
+		for (String move : report.moves()) {
+			writeString(out, move);
+		}
+		out.writeLong(indexedReport.archives());
+		out.writeLong(indexedReport.bytes());
+		out.flush();
+	}
+
+	static IndexedReport readModule(DataInputStream in) throws IOException {
+		int index = in.readInt();
+		String module = readString(in);
+		boolean sameEntries = in.readBoolean();
+		String description = readString(in);
+		int identicalArtifacts = in.readInt();
+		int moveCount = in.readInt();
+		List<String> moves = new ArrayList<>(moveCount);
+		for (int i = 0; i < moveCount; i++) {
+			moves.add(readString(in));
+		}
+		ModuleReport report = new ModuleReport(module, sameEntries, description, identicalArtifacts, moves);
+		return new IndexedReport(index, report, in.readLong(), in.readLong());
+	}
+
+	static void writeDone(DataOutputStream out, int shardId) throws IOException {
+		out.writeByte(DONE);
+		out.writeInt(shardId);
+		out.flush();
+	}
+
+	static void writeHeartbeat(DataOutputStream out) throws IOException {
+		out.writeByte(HEARTBEAT);
+		out.flush();
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	record Shard(int id, List<ShardModule> modules, int attempt) {
+
+		Shard retry() {
+			return new Shard(this.id, this.modules, this.attempt + 1);
+		}
+
+	}
+
+	record ShardModule(int index, String name, String rightName) {
+	}
+
+	record IndexedReport(int index, ModuleReport report, long archives, long bytes) {
+	}
+
+}
@@ -0,0 +1,105 @@
+package net.nicoll.deployment.diff;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import net.nicoll.deployment.diff.DeploymentDiffer.ModuleReport;
+import net.nicoll.deployment.diff.ShardProtocol.IndexedReport;
+import net.nicoll.deployment.diff.ShardProtocol.Shard;
+import net.nicoll.deployment.diff.ShardProtocol.ShardModule;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+class ShardWorker {
+
+	private static final Log logger = LogFactory.getLog(ShardWorker.class);
+
+	private final GroupDeployment groupDeployment;
+
+	private final String host;
+
+	private final int port;
+
+	private final ProgressReporter progressReporter;
+
+	ShardWorker(GroupDeployment groupDeployment, String coordinator, ProgressReporter progressReporter) {
+		this.groupDeployment = groupDeployment;
+		int separator = coordinator.lastIndexOf(':');
+		if (separator == -1) {
+			throw new IllegalArgumentException("Invalid coordinator '%s', expected host:port".formatted(coordinator));
+		}
+		this.host = coordinator.substring(0, separator);
+		this.port = Integer.parseInt(coordinator.substring(separator + 1));
+		this.progressReporter = progressReporter;
+	}
+
+	void run() throws IOException {
+		logger.info("Connecting to coordinator on %s:%s".formatted(this.host, this.port));
+		DeploymentDiffer deploymentDiffer = new DeploymentDiffer(this.groupDeployment, this.progressReporter);
+		ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "shard-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (ProgressReporter progressReporter = this.progressReporter;
+				Socket socket = new Socket(this.host, this.port);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			long interval = ShardProtocol.HEARTBEAT_INTERVAL.toMillis();
+			heartbeats.scheduleAtFixedRate(() -> heartbeat(out), interval, interval, TimeUnit.MILLISECONDS);
+			progressReporter.start(0);
+			while (true) {
+				byte command = in.readByte();
+				if (command == ShardProtocol.STOP) {
+					logger.info("Coordinator has no more shards");
+					return;
+				}
+				if (command != ShardProtocol.SHARD) {
+					throw new IllegalStateException("Unexpected command %s".formatted(command));
+				}
+				Shard shard = ShardProtocol.readShard(in);
+				logger.debug("Diffing shard %s with %s modules".formatted(shard.id(), shard.modules().size()));
+				progressReporter.modulesAssigned(shard.modules().size());
+				for (ShardModule shardModule : shard.modules()) {
+					long archives = progressReporter.archives();
+					long bytes = progressReporter.bytesRead();
+					ModuleReport report = deploymentDiffer.diff(toModule(shardModule));
+					IndexedReport indexedReport = new IndexedReport(shardModule.index(), report,
+							progressReporter.archives() - archives, progressReporter.bytesRead() - bytes);
+					synchronized (out) {
+						ShardProtocol.writeModule(out, indexedReport);
+					}
+				}
+				synchronized (out) {
+					ShardProtocol.writeDone(out, shard.id());
+				}
+			}
+		}
+		finally {
+			heartbeats.shutdownNow();
+		}
+	}
+
+	private void heartbeat(DataOutputStream out) {
+		try {
+			synchronized (out) {
+				ShardProtocol.writeHeartbeat(out);
+			}
+		}
+		catch (IOException ex) {
+			logger.debug("Failed to send heartbeat to coordinator", ex);
+		}
+	}
+
+	private Module toModule(ShardModule shardModule) {
+		return new Module(shardModule.name(), shardModule.rightName());
+	}
+
+}
@@ -2,43 +2,55 @@ package net.nicoll.deployment.diff;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import net.nicoll.deployment.diff.DiffUtils.Diff;
 
-import static org.assertj.core.api.Assertions.assertThat;
-
 class ZipDiffer {
 
 	private final Path leftZip;
 
 	private final Path rightZip;
 
+	private Boolean sameContent;
+
+	private EntryNames leftEntries;
+
+	private EntryNames rightEntries;
+
 	ZipDiffer(Path leftZip, Path rightZip) {
 		this.leftZip = leftZip;
 		this.rightZip = rightZip;
 	}
 
 	Diff<String> diff(MismatchFilter<String> filter) throws IOException {
-		List<String> leftEntries = entries(this.leftZip);
-		List<String> rightEntries = entries(this.rightZip);
-		return DiffUtils.diff(leftEntries, rightEntries, filter);
+		if (hasSameContent()) {
+			return new Diff<>(List.of(), List.of());
+		}
+		readEntries();
+		return DiffUtils.diff(this.leftEntries, this.rightEntries, filter);
+	}
+
+	List<String> diffContent(EntryContentComparator comparator) throws IOException {
+		if (hasSameContent()) {
+			return List.of();
+		}
+		readEntries();
+		return comparator.diff(this.leftZip, this.leftEntries, this.rightZip, this.rightEntries);
+	}
+
+	private boolean hasSameContent() throws IOException {
+		if (this.sameContent == null) {
+			this.sameContent = ContentUtils.hasSameContent(this.leftZip, this.rightZip);
+		}
+		return this.sameContent;
 	}
 
-	private static List<String> entries(Path file) throws IOException {
-		assertThat(file).exists().isRegularFile();
-		List<String> names = new ArrayList<>();
-		try (ZipFile jarFile = new ZipFile(file.toFile())) {
-			Enumeration<? extends ZipEntry> zipEntries = jarFile.entries();
-			while (zipEntries.hasMoreElements()) {
-				ZipEntry jarEntry = zipEntries.nextElement();
-				names.add(jarEntry.getName());
-			}
+	private void readEntries() throws IOException {
+		if (this.leftEntries == null) {
+			this.leftEntries = EntryNames.read(this.leftZip);
+			this.rightEntries = EntryNames.read(this.rightZip);
 		}
-		return names;
 	}
+
 }
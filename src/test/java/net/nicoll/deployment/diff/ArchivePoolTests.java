@@ -0,0 +1,179 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+import net.nicoll.deployment.diff.ArchivePool.Lease;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ArchivePoolTests {
+
+	@TempDir
+	Path tempDir;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void acquireSameArchiveReusesHandle() throws IOException {
+		Path archive = archive("test.jar", "a.txt");
+		try (ArchivePool pool = new ArchivePool(1, ReadRateLimiter.unlimited());
+				Lease first = pool.acquire(archive);
+				Lease second = pool.acquire(archive)) {
+			assertThat(first.zipFile()).isSameAs(second.zipFile());
+		}
+	}
+
+	@Test
+	void nestedLeasesWithSingleHandleDoNotWait() throws Exception {
+		Path left = archive("left.jar", "a.txt");
+		Path right = archive("right.jar", "b.txt");
+		try (ArchivePool pool = new ArchivePool(1, ReadRateLimiter.unlimited())) {
+			String names = within(() -> {
+				try (Lease leftLease = pool.acquire(left); Lease rightLease = pool.acquire(right)) {
+					return entryName(leftLease.zipFile()) + entryName(rightLease.zipFile());
+				}
+			});
+			assertThat(names).isEqualTo("a.txtb.txt");
+		}
+	}
+
+	@Test
+	void concurrentNestedLeasesDoNotDeadlock() throws Exception {
+		List<Path> archives = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			archives.add(archive("test-%s.jar".formatted(i), "entry-%s.txt".formatted(i)));
+		}
+		try (ArchivePool pool = new ArchivePool(2, ReadRateLimiter.unlimited())) {
+			CountDownLatch outerLeases = new CountDownLatch(2);
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				Path outer = archives.get(i);
+				Path inner = archives.get(i + 2);
+				results.add(this.executor.submit(() -> {
+					try (Lease outerLease = pool.acquire(outer)) {
+						outerLeases.countDown();
+						outerLeases.await();
+						try (Lease innerLease = pool.acquire(inner)) {
+							return entryName(innerLease.zipFile());
+						}
+					}
+				}));
+			}
+			assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("entry-2.txt");
+			assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isEqualTo("entry-3.txt");
+		}
+	}
+
+	@Test
+	void acquireWaitsForHandleLeasedByAnotherThread() throws Exception {
+		Path first = archive("first.jar", "a.txt");
+		Path second = archive("second.jar", "b.txt");
+		try (ArchivePool pool = new ArchivePool(1, ReadRateLimiter.unlimited())) {
+			CountDownLatch leased = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			Future<?> holder = this.executor.submit(() -> {
+				try (Lease lease = pool.acquire(first)) {
+					leased.countDown();
+					release.await();
+				}
+				return null;
+			});
+			leased.await();
+			Future<String> waiter = this.executor.submit(() -> {
+				try (Lease lease = pool.acquire(second)) {
+					return entryName(lease.zipFile());
+				}
+			});
+			Thread.sleep(200);
+			assertThat(waiter.isDone()).isFalse();
+			release.countDown();
+			holder.get(5, TimeUnit.SECONDS);
+			assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("b.txt");
+		}
+	}
+
+	@Test
+	void idleArchiveIsClosedWhenLimitIsReached() throws IOException {
+		Path first = archive("first.jar", "a.txt");
+		Path second = archive("second.jar", "b.txt");
+		try (ArchivePool pool = new ArchivePool(1, ReadRateLimiter.unlimited())) {
+			ZipFile firstZip;
+			try (Lease lease = pool.acquire(first)) {
+				firstZip = lease.zipFile();
+			}
+			try (Lease lease = pool.acquire(second)) {
+				assertThat(entryName(lease.zipFile())).isEqualTo("b.txt");
+			}
+			assertThatIllegalStateException().isThrownBy(firstZip::size);
+		}
+	}
+
+	@Test
+	void replacedArchiveIsReopened() throws IOException {
+		Path archive = archive("test.jar", "a.txt");
+		try (ArchivePool pool = new ArchivePool(4, ReadRateLimiter.unlimited())) {
+			ZipFile previous;
+			try (Lease lease = pool.acquire(archive)) {
+				previous = lease.zipFile();
+				assertThat(entryName(previous)).isEqualTo("a.txt");
+			}
+			archive("test.jar", "replaced.txt");
+			Files.setLastModifiedTime(archive, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+			try (Lease lease = pool.acquire(archive)) {
+				assertThat(lease.zipFile()).isNotSameAs(previous);
+				assertThat(entryName(lease.zipFile())).isEqualTo("replaced.txt");
+			}
+			assertThatIllegalStateException().isThrownBy(previous::size);
+		}
+	}
+
+	@Test
+	void replacedArchiveIsClosedOnceReleased() throws IOException {
+		Path archive = archive("test.jar", "a.txt");
+		try (ArchivePool pool = new ArchivePool(4, ReadRateLimiter.unlimited())) {
+			Lease stale = pool.acquire(archive);
+			archive("test.jar", "replaced.txt");
+			Files.setLastModifiedTime(archive, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+			try (Lease lease = pool.acquire(archive)) {
+				assertThat(entryName(lease.zipFile())).isEqualTo("replaced.txt");
+				assertThat(entryName(stale.zipFile())).isEqualTo("a.txt");
+			}
+			stale.close();
+			assertThatIllegalStateException().isThrownBy(stale.zipFile()::size);
+		}
+	}
+
+	private <T> T within(Callable<T> action) throws Exception {
+		return this.executor.submit(action).get(5, TimeUnit.SECONDS);
+	}
+
+	private Path archive(String name, String entry) throws IOException {
+		return TestArchives.archive(this.tempDir.resolve(name), entry);
+	}
+
+	private static String entryName(ZipFile zipFile) {
+		return zipFile.entries().nextElement().getName();
+	}
+
+}
@@ -0,0 +1,89 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactSketchTests {
+
+	private static final double FALSE_POSITIVE_RATE = 0.000001;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void readMatchesArchiveWithSameEntries() throws IOException {
+		ArtifactSketch left = sketch("left.jar", "com/example/", "com/example/One.class", "com/example/Two.class");
+		ArtifactSketch right = sketch("right.jar", "com/example/", "com/example/Two.class", "com/example/One.class");
+		assertThat(left.matches(right)).isTrue();
+	}
+
+	@Test
+	void readDiffersWhenEntryContentChanges() throws IOException {
+		ArtifactSketch left = sketch("left.jar", "com/example/One.class");
+		Path right = TestArchives.archive(this.tempDir.resolve("right.jar"),
+				Map.of("com/example/One.class", "com/example/Uno.class"));
+		assertThat(left.matches(read(right))).isFalse();
+	}
+
+	@Test
+	void readDiffersWhenEntryIsAdded() throws IOException {
+		ArtifactSketch left = sketch("left.jar", "com/example/One.class");
+		ArtifactSketch right = sketch("right.jar", "com/example/One.class", "com/example/Two.class");
+		assertThat(left.matches(right)).isFalse();
+		assertThat(right.matches(left)).isFalse();
+	}
+
+	@Test
+	void readDiffersWhenEntryIsRenamed() throws IOException {
+		ArtifactSketch left = sketch("left.jar", "com/example/One.class");
+		Path right = TestArchives.archive(this.tempDir.resolve("right.jar"),
+				Map.of("org/example/One.class", "com/example/One.class"));
+		assertThat(left.matches(read(right))).isFalse();
+	}
+
+	@Test
+	void readMatchesSketchOfEntries() throws IOException {
+		Path jar = jar("test.jar", "com/example/", "com/example/One.class");
+		ArtifactSketch sketch = read(jar);
+		assertThat(sketch.matches(ArtifactSketch.of(ArchiveEntries.read(jar), FALSE_POSITIVE_RATE))).isTrue();
+	}
+
+	@Test
+	void readReturnsCachedSketchWithoutReadingEntries() throws IOException {
+		Path jar = jar("test.jar", "com/example/One.class");
+		ArtifactSketch sketch = read(jar);
+		assertThat(ArtifactSketch.read(jar, FALSE_POSITIVE_RATE, () -> {
+			throw new IllegalStateException("Entries should not be read");
+		})).isSameAs(sketch);
+	}
+
+	@Test
+	void sketchOfDirectoryIndexUsesEntriesOfIndex() throws IOException {
+		Path jar = jar("test-1.0.jar", "com/example/One.class");
+		ModuleIndex index = new DirectoryModuleIndex(this.tempDir, Map.of("", jar));
+		ArtifactSketch sketch = index.sketch("", FALSE_POSITIVE_RATE);
+		Files.delete(jar);
+		assertThat(index.entries("").toList()).containsExactly("com/example/One.class");
+		assertThat(sketch.matches(ArtifactSketch.of(index.archiveEntries(""), FALSE_POSITIVE_RATE))).isTrue();
+	}
+
+	private ArtifactSketch sketch(String fileName, String... entries) throws IOException {
+		return read(jar(fileName, entries));
+	}
+
+	private ArtifactSketch read(Path jar) throws IOException {
+		return ArtifactSketch.read(jar, FALSE_POSITIVE_RATE, () -> ArchiveEntries.read(jar));
+	}
+
+	private Path jar(String fileName, String... entries) throws IOException {
+		return TestArchives.archive(this.tempDir.resolve(fileName), entries);
+	}
+
+}
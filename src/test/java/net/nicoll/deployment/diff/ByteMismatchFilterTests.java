@@ -0,0 +1,84 @@
+package net.nicoll.deployment.diff;
+
+import java.nio.charset.StandardCharsets;
+
+import net.nicoll.deployment.diff.Application.JavadocJarMismatchFilter;
+import net.nicoll.deployment.diff.Application.MainJarMismatchFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteMismatchFilterTests {
+
+	private static final byte[] NAME = bytes("xxcom/example/package-info.classyy");
+
+	@Test
+	void startsWithUsesOffsetAndLength() {
+		assertThat(ByteMismatchFilter.startsWith(NAME, 2, NAME.length - 4, bytes("com/example/"))).isTrue();
+		assertThat(ByteMismatchFilter.startsWith(NAME, 0, NAME.length, bytes("com/example/"))).isFalse();
+		assertThat(ByteMismatchFilter.startsWith(NAME, 2, 3, bytes("com/example/"))).isFalse();
+	}
+
+	@Test
+	void endsWithUsesOffsetAndLength() {
+		assertThat(ByteMismatchFilter.endsWith(NAME, 2, NAME.length - 4, bytes("package-info.class"))).isTrue();
+		assertThat(ByteMismatchFilter.endsWith(NAME, 0, NAME.length, bytes("package-info.class"))).isFalse();
+		assertThat(ByteMismatchFilter.endsWith(NAME, 2, 3, bytes("package-info.class"))).isFalse();
+	}
+
+	@Test
+	void containsUsesOffsetAndLength() {
+		assertThat(ByteMismatchFilter.contains(NAME, 2, NAME.length - 4, bytes("/example/"))).isTrue();
+		assertThat(ByteMismatchFilter.contains(NAME, 2, NAME.length - 4, bytes("xxcom"))).isFalse();
+		assertThat(ByteMismatchFilter.contains(NAME, 2, NAME.length - 4, bytes("classyy"))).isFalse();
+		assertThat(ByteMismatchFilter.contains(NAME, 2, 0, bytes("c"))).isFalse();
+	}
+
+	@Test
+	void ofAdaptsStringFilter() {
+		ByteMismatchFilter filter = ByteMismatchFilter.of(new MismatchFilter<>() {
+			@Override
+			public boolean ignoreInLeft(String key) {
+				return key.equals("com/example/package-info.class");
+			}
+
+			@Override
+			public boolean ignoreInRight(String key) {
+				return key.startsWith("xx");
+			}
+		});
+		assertThat(filter.ignoreInLeft(NAME, 2, NAME.length - 4)).isTrue();
+		assertThat(filter.ignoreInLeft(NAME, 0, NAME.length)).isFalse();
+		assertThat(filter.ignoreInRight(NAME, 0, NAME.length)).isTrue();
+		assertThat(filter.ignoreInRight(NAME, 2, NAME.length - 4)).isFalse();
+	}
+
+	@Test
+	void ofReturnsByteFilterAsIs() {
+		MainJarMismatchFilter filter = new MainJarMismatchFilter();
+		assertThat(ByteMismatchFilter.of(filter)).isSameAs(filter);
+	}
+
+	@Test
+	void mainJarFilterMatchesStringAndBytes() {
+		MainJarMismatchFilter filter = new MainJarMismatchFilter();
+		assertThat(filter.ignoreInLeft("META-INF/maven/org.example/test/pom.xml")).isTrue();
+		assertThat(filter.ignoreInLeft("com/example/package-info.class")).isTrue();
+		assertThat(filter.ignoreInLeft("com/example/Test.class")).isFalse();
+		assertThat(filter.ignoreInLeft(NAME, 2, NAME.length - 4)).isTrue();
+		assertThat(filter.ignoreInRight("com/example/package-info.class")).isFalse();
+	}
+
+	@Test
+	void javadocJarFilterIgnoresUsePages() {
+		JavadocJarMismatchFilter filter = new JavadocJarMismatchFilter();
+		assertThat(filter.ignoreInLeft("com/example/class-use/Test.html")).isTrue();
+		assertThat(filter.ignoreInLeft("com/example/package-use.html")).isTrue();
+		assertThat(filter.ignoreInLeft("com/example/Test.html")).isFalse();
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,107 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class CentralDirectoryTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void readMatchesZipFileOnRealJar() throws IOException, URISyntaxException {
+		Path jar = Path.of(Assertions.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		assertMatchesZipFile(jar);
+	}
+
+	@Test
+	void readArchiveWithNonAsciiNamesAndComment() throws IOException {
+		Path archive = this.tempDir.resolve("test.zip");
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+			out.setComment("A comment with PK\u0005\u0006 in it");
+			write(out, "com/example/", null);
+			write(out, "com/example/Café.class", "café");
+			write(out, "com/example/Empty.class", "");
+		}
+		CentralDirectory centralDirectory = CentralDirectory.read(archive);
+		assertThat(centralDirectory.size()).isEqualTo(3);
+		assertThat(new String(centralDirectory.name(1), StandardCharsets.UTF_8)).isEqualTo("com/example/Café.class");
+		assertThat(centralDirectory.entryKey(0)).isNull();
+		assertThat(centralDirectory.entryKey(2)).isNull();
+		assertMatchesZipFile(archive);
+	}
+
+	@Test
+	void readArchiveWithPrefix() throws IOException {
+		Path archive = TestArchives.archive(this.tempDir.resolve("test.zip"), "com/example/One.class");
+		Path prefixed = this.tempDir.resolve("prefixed.zip");
+		try (OutputStream out = Files.newOutputStream(prefixed)) {
+			out.write("#!/bin/sh\nexit 0\n".getBytes(StandardCharsets.UTF_8));
+			Files.copy(archive, out);
+		}
+		assertMatchesZipFile(prefixed);
+	}
+
+	@Test
+	void readZip64Archive() throws IOException {
+		Path archive = this.tempDir.resolve("test.zip");
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+			for (int i = 0; i < 70_000; i++) {
+				write(out, "entry-%s".formatted(i), (i % 2 == 0) ? "content" : null);
+			}
+		}
+		assertThat(CentralDirectory.read(archive).size()).isEqualTo(70_000);
+		assertMatchesZipFile(archive);
+	}
+
+	@Test
+	void readFileThatIsNotAnArchive() throws IOException {
+		Path file = Files.writeString(this.tempDir.resolve("test.zip"), "not an archive");
+		assertThatExceptionOfType(ZipException.class).isThrownBy(() -> CentralDirectory.read(file))
+			.withMessageContaining("No end of central directory record");
+	}
+
+	private void write(ZipOutputStream out, String name, String content) throws IOException {
+		out.putNextEntry(new ZipEntry(name));
+		if (content != null) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		out.closeEntry();
+	}
+
+	private void assertMatchesZipFile(Path archive) throws IOException {
+		CentralDirectory centralDirectory = CentralDirectory.read(archive);
+		List<String> names = new ArrayList<>();
+		List<String> expectedNames = new ArrayList<>();
+		try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+			assertThat(centralDirectory.size()).isEqualTo(zipFile.size());
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			for (int i = 0; i < centralDirectory.size(); i++) {
+				ZipEntry entry = entries.nextElement();
+				expectedNames.add(entry.getName());
+				names.add(new String(centralDirectory.name(i), StandardCharsets.UTF_8));
+				assertThat(centralDirectory.entryKey(i)).isEqualTo(RenameDetector.entryKey(entry));
+			}
+		}
+		assertThat(names).isEqualTo(expectedNames);
+	}
+
+}
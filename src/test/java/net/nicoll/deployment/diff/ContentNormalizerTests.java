@@ -0,0 +1,72 @@
+package net.nicoll.deployment.diff;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentNormalizerTests {
+
+	@Test
+	void timestampsNormalizeJavadocGeneratedComment() {
+		assertThat(ContentNormalizer.timestamps()
+			.normalize("<!-- Generated by javadoc (17) on Mon Mar 03 10:12:45 CET 2025 -->\n"))
+			.isEqualTo("<!-- Generated by javadoc -->\n");
+	}
+
+	@Test
+	void timestampsNormalizeHtmlDateMeta() {
+		assertThat(ContentNormalizer.timestamps().normalize("<meta name=\"dc.created\" content=\"2025-03-03\">\n"))
+			.isEqualTo("<meta name=\"date\">\n");
+		assertThat(ContentNormalizer.timestamps().normalize("<meta name=\"date\" content=\"2024-01-01\">"))
+			.isEqualTo("<meta name=\"date\">");
+	}
+
+	@Test
+	void timestampsNormalizeAsciidoctorLastUpdated() {
+		assertThat(ContentNormalizer.timestamps().normalize("Last updated 2025-03-03 10:12:45 +0100</div>"))
+			.isEqualTo("Last updated</div>");
+	}
+
+	@Test
+	void timestampsNormalizePropertiesTimestampComment() {
+		assertThat(ContentNormalizer.timestamps().normalize("#Mon Mar 03 10:12:45 CET 2025\n")).isEqualTo("#\n");
+	}
+
+	@Test
+	void timestampsKeepOtherContent() {
+		String line = "<p>Updated on 2025-03-03</p>\n";
+		assertThat(ContentNormalizer.timestamps().normalize(line)).isEqualTo(line);
+	}
+
+	@Test
+	void lineEndingsNormalizeCarriageReturns() {
+		ContentNormalizer normalizer = ContentNormalizer.lineEndings();
+		assertThat(normalizer.normalize("line\r\n")).isEqualTo("line\n");
+		assertThat(normalizer.normalize("line\r")).isEqualTo("line\n");
+		assertThat(normalizer.normalize("line")).isEqualTo("line\n");
+		assertThat(normalizer.normalize("line\n")).isEqualTo("line\n");
+	}
+
+	@Test
+	void whitespaceCollapsesAndStripsContent() {
+		ContentNormalizer normalizer = ContentNormalizer.whitespace();
+		assertThat(normalizer.normalize("  <a \t href=\"x\">   text </a>  \n")).isEqualTo("<a href=\"x\"> text </a>\n");
+		assertThat(normalizer.normalize("\t value ")).isEqualTo("value");
+	}
+
+	@Test
+	void replacingUsesPattern() {
+		ContentNormalizer normalizer = ContentNormalizer.replacing(Pattern.compile("\\d+"), "N");
+		assertThat(normalizer.normalize("version 1.2.10")).isEqualTo("version N.N.N");
+	}
+
+	@Test
+	void andThenAppliesNormalizersInOrder() {
+		ContentNormalizer normalizer = ContentNormalizer.replacing(Pattern.compile("a"), "b")
+			.andThen(ContentNormalizer.replacing(Pattern.compile("b"), "c"));
+		assertThat(normalizer.normalize("ab")).isEqualTo("cc");
+	}
+
+}
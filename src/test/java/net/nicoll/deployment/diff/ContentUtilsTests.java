@@ -0,0 +1,138 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentUtilsTests {
+
+	private static final int LARGE_SIZE = (int) ContentUtils.CHUNK_SIZE + 1024 * 1024;
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void hasSameContentWithIdenticalFiles() throws IOException {
+		Path left = write("left.jar", "content");
+		Path right = write("right.jar", "content");
+		assertThat(ContentUtils.hasSameContent(left, right)).isTrue();
+	}
+
+	@Test
+	void hasSameContentWithDifferentSizes() throws IOException {
+		Path left = write("left.jar", "content");
+		Path right = write("right.jar", "content and more");
+		assertThat(ContentUtils.hasSameContent(left, right)).isFalse();
+	}
+
+	@Test
+	void hasSameContentWithSameSizeAndDifferentContent() throws IOException {
+		Path left = write("left.jar", "content-1");
+		Path right = write("right.jar", "content-2");
+		assertThat(ContentUtils.hasSameContent(left, right)).isFalse();
+	}
+
+	@Test
+	void hasSameContentWithEmptyFiles() throws IOException {
+		Path left = write("left.jar", "");
+		Path right = write("right.jar", "");
+		assertThat(ContentUtils.hasSameContent(left, right)).isTrue();
+	}
+
+	@Test
+	void hasSameContentWithLargeIdenticalFiles() throws IOException {
+		Path left = writeLarge("left.jar", -1);
+		Path right = writeLarge("right.jar", -1);
+		assertThat(ContentUtils.hasSameContent(left, right)).isTrue();
+	}
+
+	@Test
+	void hasSameContentWithLargeFilesDifferingInFirstChunk() throws IOException {
+		Path left = writeLarge("left.jar", -1);
+		Path right = writeLarge("right.jar", 0);
+		assertThat(ContentUtils.hasSameContent(left, right)).isFalse();
+	}
+
+	@Test
+	void hasSameContentWithLargeFilesDifferingOnlyInLastChunk() throws IOException {
+		Path left = writeLarge("left.jar", -1);
+		Path right = writeLarge("right.jar", LARGE_SIZE - 1);
+		assertThat(Files.size(right)).isGreaterThan(ContentUtils.CHUNK_SIZE);
+		assertThat(ContentUtils.hasSameContent(left, right)).isFalse();
+	}
+
+	@Test
+	void hasSameContentWithLargeFilesDifferingAtChunkBoundary() throws IOException {
+		Path left = writeLarge("left.jar", -1);
+		Path right = writeLarge("right.jar", (int) ContentUtils.CHUNK_SIZE);
+		assertThat(ContentUtils.hasSameContent(left, right)).isFalse();
+	}
+
+	@Test
+	void hasSameContentCountsBytesUpToFirstMismatch() throws Exception {
+		Path left = write("left.jar", "content-1");
+		Path right = write("right.jar", "content-2");
+		Path same = write("same.jar", "content-1");
+		assertThat(bytesRead(() -> ContentUtils.hasSameContent(left, right))).isEqualTo(18);
+		assertThat(bytesRead(() -> ContentUtils.hasSameContent(left, same))).isEqualTo(18);
+		assertThat(bytesRead(() -> ContentUtils.hasSameContent(left, write("other.jar", "other-1")))).isZero();
+	}
+
+	@Test
+	void hasSameContentWithLargeFilesCountsBytesOfComparedChunks() throws Exception {
+		Path left = writeLarge("left.jar", -1);
+		Path right = writeLarge("right.jar", 0);
+		Path same = writeLarge("same.jar", -1);
+		assertThat(bytesRead(() -> ContentUtils.hasSameContent(left, right)))
+			.isLessThanOrEqualTo(2 + 2 * (LARGE_SIZE - ContentUtils.CHUNK_SIZE));
+		assertThat(bytesRead(() -> ContentUtils.hasSameContent(left, same))).isEqualTo(2L * LARGE_SIZE);
+	}
+
+	@Test
+	void digestIsSha256OfContent() throws IOException {
+		Path file = write("test.jar", "abc");
+		assertThat(ContentUtils.digest(file))
+			.isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+	}
+
+	private long bytesRead(Callable<Boolean> action) throws Exception {
+		LongAdder counter = new LongAdder();
+		ReadRateLimiter.countReads(counter);
+		try {
+			action.call();
+			return counter.sum();
+		}
+		finally {
+			ReadRateLimiter.countReads(null);
+		}
+	}
+
+	private Path write(String name, String content) throws IOException {
+		return Files.writeString(this.tempDir.resolve(name), content, StandardCharsets.UTF_8);
+	}
+
+	private Path writeLarge(String name, int flippedByte) throws IOException {
+		Path file = this.tempDir.resolve(name);
+		byte[] buffer = new byte[1024 * 1024];
+		try (OutputStream out = Files.newOutputStream(file)) {
+			for (int i = 0; i < LARGE_SIZE / buffer.length; i++) {
+				for (int j = 0; j < buffer.length; j++) {
+					int position = i * buffer.length + j;
+					buffer[j] = (byte) ((position == flippedByte) ? ~position : position);
+				}
+				out.write(buffer);
+			}
+		}
+		return file;
+	}
+
+}
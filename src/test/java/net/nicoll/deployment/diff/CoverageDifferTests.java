@@ -0,0 +1,93 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.nicoll.deployment.diff.CoverageDiffer.CoverageDiff;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoverageDifferTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void diffWithSameCoverage() throws IOException {
+		ModuleIndex left = index("left", Map.of("", List.of("com/example/One.class", "com/example/One$Inner.class"),
+				"sources", List.of("com/example/One.java"), "javadoc", List.of("com/example/One.html")));
+		ModuleIndex right = index("right", Map.of("", List.of("com/example/One.class"), "sources",
+				List.of("com/example/One.kt"), "javadoc", List.of("com/example/One.html")));
+		assertThat(new CoverageDiffer(left, right).diff(Set.of())).containsExactly(
+				new CoverageDiff(CoverageDiffer.SOURCES, List.of(), List.of()),
+				new CoverageDiff(CoverageDiffer.JAVADOC, List.of(), List.of()));
+	}
+
+	@Test
+	void diffWithTypeWithoutSourcesOnOneSide() throws IOException {
+		ModuleIndex left = index("left", Map.of("", List.of("com/example/One.class", "com/example/Two.class"),
+				"sources", List.of("com/example/One.java", "com/example/Two.java")));
+		ModuleIndex right = index("right", Map.of("", List.of("com/example/One.class", "com/example/Two.class"),
+				"sources", List.of("com/example/One.java")));
+		List<CoverageDiff> diffs = new CoverageDiffer(left, right).diff(Set.of());
+		assertThat(diffs).containsExactly(
+				new CoverageDiff(CoverageDiffer.SOURCES, List.of(), List.of("com/example/Two")));
+		assertThat(diffs.get(0).hasSameEntries()).isFalse();
+	}
+
+	@Test
+	void diffWithTypeWithoutJavadocOnlyInLeft() throws IOException {
+		ModuleIndex left = index("left", Map.of("", List.of("com/example/One.class", "com/example/Two.class"),
+				"javadoc", List.of("com/example/One.html")));
+		ModuleIndex right = index("right",
+				Map.of("", List.of("com/example/One.class"), "javadoc", List.of("com/example/One.html")));
+		List<CoverageDiff> diffs = new CoverageDiffer(left, right).diff(Set.of());
+		assertThat(diffs).containsExactly(
+				new CoverageDiff(CoverageDiffer.JAVADOC, List.of("com/example/Two"), List.of()));
+	}
+
+	@Test
+	void diffWithClassifierOnOneSideOnly() throws IOException {
+		ModuleIndex left = index("left",
+				Map.of("", List.of("com/example/One.class"), "sources", List.of("com/example/Other.java")));
+		ModuleIndex right = index("right", Map.of("", List.of("com/example/One.class")));
+		assertThat(new CoverageDiffer(left, right).diff(Set.of())).isEmpty();
+	}
+
+	@Test
+	void diffWithMainJarOnOneSideOnly() throws IOException {
+		ModuleIndex left = index("left", Map.of("sources", List.of("com/example/One.java")));
+		ModuleIndex right = index("right",
+				Map.of("", List.of("com/example/One.class"), "sources", List.of("com/example/One.java")));
+		assertThat(new CoverageDiffer(left, right).diff(Set.of())).isEmpty();
+	}
+
+	@Test
+	void diffSkipsClassifierIdenticalWithMainJar() throws IOException {
+		ModuleIndex left = index("left",
+				Map.of("", List.of("com/example/One.class"), "sources", List.of("com/example/Other.java")));
+		ModuleIndex right = index("right",
+				Map.of("", List.of("com/example/One.class"), "sources", List.of("com/example/Other.java")));
+		assertThat(new CoverageDiffer(left, right).diff(Set.of("", CoverageDiffer.SOURCES))).isEmpty();
+		assertThat(new CoverageDiffer(left, right).diff(Set.of(CoverageDiffer.SOURCES))).hasSize(1);
+	}
+
+	private ModuleIndex index(String name, Map<String, List<String>> entries) throws IOException {
+		Path directory = Files.createDirectories(this.tempDir.resolve(name));
+		Map<String, Path> jars = new LinkedHashMap<>();
+		for (Map.Entry<String, List<String>> entry : entries.entrySet()) {
+			String fileName = entry.getKey().isEmpty() ? "core-1.0.jar" : "core-1.0-%s.jar".formatted(entry.getKey());
+			jars.put(entry.getKey(),
+					TestArchives.archive(directory.resolve(fileName), entry.getValue().toArray(String[]::new)));
+		}
+		return new DirectoryModuleIndex(directory, jars);
+	}
+
+}
@@ -0,0 +1,198 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import net.nicoll.deployment.diff.DiffServer.DiffOutcome;
+import net.nicoll.deployment.diff.DiffServer.DiffRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DiffServerTests {
+
+	@TempDir
+	Path tempDir;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void submitCachesResultOfUnchangedRepositories() throws IOException {
+		DiffRequest request = request();
+		try (DiffServer server = server(UnaryOperator.identity())) {
+			DiffOutcome first = server.submit(request);
+			assertThat(first.origin()).isEqualTo("computed");
+			assertThat(first.result().sameEntries()).isTrue();
+			assertThat(first.result().report()).startsWith("Diffed org.example 1.0: 1 modules, 0 with differences");
+			DiffOutcome second = server.submit(request);
+			assertThat(second.origin()).isEqualTo("cached");
+			assertThat(second.result()).isEqualTo(first.result());
+		}
+	}
+
+	@Test
+	void submitDiffsAgainWhenArchiveChanges() throws IOException {
+		DiffRequest request = request();
+		try (DiffServer server = server(UnaryOperator.identity())) {
+			assertThat(server.submit(request).origin()).isEqualTo("computed");
+			Path jar = jar(this.tempDir.resolve("right"), "core", "com/example/Two.class");
+			Files.setLastModifiedTime(jar, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+			DiffOutcome outcome = server.submit(request);
+			assertThat(outcome.origin()).isEqualTo("computed");
+			assertThat(outcome.result().sameEntries()).isFalse();
+			assertThat(outcome.result().report()).contains("com/example/Two.class");
+		}
+	}
+
+	@Test
+	void submitMergesConcurrentIdenticalRequests() throws Exception {
+		DiffRequest request = request();
+		AtomicInteger diffs = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		UnaryOperator<Deployment> customizer = deployment -> {
+			diffs.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return deployment;
+		};
+		try (DiffServer server = server(customizer)) {
+			Future<DiffOutcome> first = this.executor.submit(() -> server.submit(request));
+			Future<DiffOutcome> second = this.executor.submit(() -> server.submit(request));
+			Thread.sleep(200);
+			release.countDown();
+			List<String> origins = List.of(first.get(10, TimeUnit.SECONDS).origin(),
+					second.get(10, TimeUnit.SECONDS).origin());
+			assertThat(origins).containsExactlyInAnyOrder("computed", "merged");
+			assertThat(diffs.get()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void submitReturnsCachedResultWhenQueueIsFull() throws Exception {
+		DiffRequest request = request();
+		CountDownLatch release = new CountDownLatch(1);
+		UnaryOperator<Deployment> customizer = deployment -> {
+			if (!deployment.leftDirectory().endsWith("left")) {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return deployment;
+		};
+		try (DiffServer server = new DiffServer(customizer, List.of(this.tempDir), 1, 1, 8)) {
+			assertThat(server.submit(request).origin()).isEqualTo("computed");
+			Future<DiffOutcome> running = this.executor.submit(() -> server.submit(swapped(request, "")));
+			Thread.sleep(200);
+			Future<DiffOutcome> queued = this.executor.submit(() -> server.submit(swapped(request, "/.")));
+			Thread.sleep(200);
+			assertThatExceptionOfType(RejectedExecutionException.class)
+				.isThrownBy(() -> server.submit(swapped(request, "/./.")));
+			assertThat(server.submit(request).origin()).isEqualTo("cached");
+			release.countDown();
+			assertThat(running.get(10, TimeUnit.SECONDS).origin()).isEqualTo("computed");
+			assertThat(queued.get(10, TimeUnit.SECONDS).origin()).isEqualTo("computed");
+		}
+	}
+
+	@Test
+	void submitDeletesCopyOfRepositories() throws IOException {
+		DiffRequest request = request();
+		List<String> copies = temporaryCopies();
+		try (DiffServer server = server(UnaryOperator.identity())) {
+			assertThat(server.submit(request).origin()).isEqualTo("computed");
+			assertThat(temporaryCopies()).isEqualTo(copies);
+		}
+	}
+
+	@Test
+	void submitReportsFindingsOutsideModules() throws IOException {
+		DiffRequest request = request();
+		jar(this.tempDir.resolve("left"), "extra", "com/example/Extra.class");
+		try (DiffServer server = server(UnaryOperator.identity())) {
+			DiffOutcome outcome = server.submit(request);
+			assertThat(outcome.result().sameEntries()).isFalse();
+			assertThat(outcome.result().report()).contains("1 other mismatches");
+			assertThat(outcome.result().report()).contains("Right does not contain module 'extra'");
+		}
+	}
+
+	@Test
+	void isAllowedOnlyUnderRoots() throws IOException {
+		Path root = Files.createDirectories(this.tempDir.resolve("root"));
+		Files.createDirectories(root.resolve("left"));
+		try (DiffServer server = new DiffServer(UnaryOperator.identity(), List.of(root), 1, 1, 1)) {
+			assertThat(server.isAllowed(root.resolve("left").toString())).isTrue();
+			assertThat(server.isAllowed(root.resolve("missing").toString())).isTrue();
+			assertThat(server.isAllowed(this.tempDir.toString())).isFalse();
+			assertThat(server.isAllowed(root.resolve("../other").toString())).isFalse();
+		}
+	}
+
+	@Test
+	void parseRequiresAllParameters() {
+		DiffRequest request = DiffRequest.parse("left=%2Fa&right=%2Fb&groupId=org.example&version=1.0");
+		assertThat(request).isEqualTo(new DiffRequest("/a", "/b", "org.example", "1.0"));
+		assertThatIllegalArgumentException().isThrownBy(() -> DiffRequest.parse("left=a&right=b&version=1.0"))
+			.withMessageContaining("'groupId'");
+	}
+
+	private DiffServer server(UnaryOperator<Deployment> customizer) throws IOException {
+		return new DiffServer(customizer, List.of(this.tempDir), 2, 4, 8);
+	}
+
+	private DiffRequest request() throws IOException {
+		Path left = this.tempDir.resolve("left");
+		Path right = this.tempDir.resolve("right");
+		for (Path repository : List.of(left, right)) {
+			jar(repository, "core", "com/example/One.class");
+		}
+		return new DiffRequest(left.toString(), right.toString(), "org.example", "1.0");
+	}
+
+	private static DiffRequest swapped(DiffRequest request, String suffix) {
+		return new DiffRequest(request.right() + suffix, request.left() + suffix, request.groupId(),
+				request.version());
+	}
+
+	private static List<String> temporaryCopies() throws IOException {
+		try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+			return files.map(file -> file.getFileName().toString())
+				.filter(name -> name.startsWith("deployment-repository-diff"))
+				.sorted()
+				.toList();
+		}
+	}
+
+	private static Path jar(Path repository, String module, String... entries) throws IOException {
+		return TestArchives.module(repository, module, "1.0", entries);
+	}
+
+}
@@ -0,0 +1,68 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntryContentComparatorTests {
+
+	private static final String LONG_LINE = "word ".repeat(40_000).strip();
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void diffIgnoresTimestampsLineEndingsAndWhitespace() throws IOException {
+		List<String> mismatches = diff("""
+				<!-- Generated by javadoc (17) on Mon Mar 03 10:12:45 CET 2025 -->
+				<p>Some   text</p>
+				""", "<!-- Generated by javadoc (17) on Tue Mar 04 08:00:00 CET 2025 -->\r\n  <p>Some text</p>  \r\n");
+		assertThat(mismatches).isEmpty();
+	}
+
+	@Test
+	void diffReportsContentMismatch() throws IOException {
+		assertThat(diff("<p>Some text</p>\n", "<p>Other text</p>\n")).containsExactly("index.html");
+	}
+
+	@Test
+	void diffIgnoresLineEndingsAndWhitespaceOfLongLine() throws IOException {
+		String left = "<p>\n" + LONG_LINE + "\n</p>\n";
+		String right = "<p>\r\n\t\t" + LONG_LINE.replace(" ", "  ") + " \r\n</p>\r\n";
+		assertThat(diff(left, right)).isEmpty();
+	}
+
+	@Test
+	void diffIgnoresCarriageReturnLineEndingsOfLongLine() throws IOException {
+		String left = LONG_LINE + "\n" + LONG_LINE + "\n";
+		String right = LONG_LINE + "\r" + LONG_LINE + "\r";
+		assertThat(diff(left, right)).isEmpty();
+	}
+
+	@Test
+	void diffReportsMismatchAtEndOfLongLine() throws IOException {
+		String left = LONG_LINE + " first\n";
+		String right = "  " + LONG_LINE + " second\r\n";
+		assertThat(diff(left, right)).containsExactly("index.html");
+	}
+
+	@Test
+	void diffReportsMismatchInLongWord() throws IOException {
+		String word = "x".repeat(300_000);
+		assertThat(diff(word + "a\n", "  " + word + "b\r\n")).containsExactly("index.html");
+		assertThat(diff(word + "a\n", "  " + word + "a\r\n")).isEmpty();
+	}
+
+	private List<String> diff(String leftContent, String rightContent) throws IOException {
+		Path left = TestArchives.archive(this.tempDir.resolve("left.zip"), Map.of("index.html", leftContent));
+		Path right = TestArchives.archive(this.tempDir.resolve("right.zip"), Map.of("index.html", rightContent));
+		return EntryContentComparator.defaults().diff(left, EntryNames.read(left), right, EntryNames.read(right));
+	}
+
+}
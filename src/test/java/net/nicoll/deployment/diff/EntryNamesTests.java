@@ -0,0 +1,154 @@
+package net.nicoll.deployment.diff;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class EntryNamesTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void ofSortsNamesByUtf8Bytes() {
+		EntryNames names = EntryNames.of(List.of("b/é.txt", "b/z.txt", "a/", "a/B.class", "a/A.class"));
+		assertThat(names.toList()).containsExactly("a/", "a/A.class", "a/B.class", "b/z.txt", "b/é.txt");
+	}
+
+	@Test
+	void ofKeepsDuplicateNames() {
+		EntryNames names = EntryNames.of(List.of("a/A.class", "b/B.class", "a/A.class"));
+		assertThat(names.size()).isEqualTo(3);
+		assertThat(names.toList()).containsExactly("a/A.class", "a/A.class", "b/B.class");
+	}
+
+	@Test
+	void indexOfAcrossBlocks() {
+		EntryNames names = EntryNames.of(sampleNames(100));
+		List<String> sorted = names.toList();
+		for (int i = 0; i < sorted.size(); i++) {
+			assertThat(names.indexOf(sorted.get(i))).isEqualTo(i);
+		}
+		assertThat(names.indexOf("com/example/")).isEqualTo(-1);
+		assertThat(names.indexOf("org/example/Type-0.class")).isEqualTo(-1);
+		assertThat(names.indexOf("zzz")).isEqualTo(-1);
+		assertThat(names.contains("com/example/pkg3/Type-33.class")).isTrue();
+		assertThat(names.contains("com/example/pkg3/Type-3")).isFalse();
+	}
+
+	@Test
+	void emptyNames() {
+		EntryNames names = EntryNames.of(List.of());
+		assertThat(names.isEmpty()).isTrue();
+		assertThat(names.indexOf("a")).isEqualTo(-1);
+		assertThat(names.toList()).isEmpty();
+	}
+
+	@Test
+	void writeToAndReadFromRoundTrip() throws IOException {
+		EntryNames names = EntryNames.of(sampleNames(50));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			names.writeTo(out);
+			out.writeInt(42);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		EntryNames read = EntryNames.readFrom(buffer);
+		assertThat(read.toList()).isEqualTo(names.toList());
+		assertThat(read.indexOf("com/example/pkg2/Type-20.class"))
+			.isEqualTo(names.indexOf("com/example/pkg2/Type-20.class"));
+		assertThat(buffer.getInt()).isEqualTo(42);
+	}
+
+	@Test
+	void readFromReadsNamesInPlace() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.write(new byte[3]);
+			EntryNames.of(List.of("a/b")).writeTo(out);
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size()).put(bytes.toByteArray()).position(3);
+		EntryNames read = EntryNames.readFrom(buffer);
+		assertThat(read.toList()).containsExactly("a/b");
+		assertThat(buffer.hasRemaining()).isFalse();
+		buffer.put(3 + 4 + 4 + 2 + 2, (byte) 'c');
+		assertThat(read.toList()).containsExactly("a/c");
+		assertThat(read.contains("a/c")).isTrue();
+	}
+
+	@Test
+	void readFromArchive() throws IOException {
+		Path archive = TestArchives.archive(this.tempDir.resolve("test.jar"), "META-INF/MANIFEST.MF",
+				"com/example/B.class", "com/example/A.class");
+		assertThat(EntryNames.read(archive).toList()).containsExactly("META-INF/MANIFEST.MF", "com/example/A.class",
+				"com/example/B.class");
+	}
+
+	@Test
+	void frontCodingIsSmallerThanNames() {
+		List<String> sampleNames = sampleNames(1000);
+		long namesSize = sampleNames.stream().mapToLong(name -> name.length()).sum();
+		assertThat(EntryNames.of(sampleNames).sizeInBytes()).isLessThan(namesSize / 2);
+	}
+
+	@Test
+	void frontCodingIsSmallerThanListOfNamesOfRealJar() throws Exception {
+		Path jar = Path.of(Assertions.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		EntryNames names = EntryNames.read(jar);
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			assertThat(names.size()).isEqualTo(zipFile.size());
+		}
+		assertThat(names.sizeInBytes()).isLessThan(EntryNames.listSizeInBytes(names.toList()) / 3);
+	}
+
+	@Test
+	void listSizeInBytesCountsStringsAndArray() {
+		assertThat(EntryNames.listSizeInBytes(List.of())).isEqualTo(24 + 16);
+		assertThat(EntryNames.listSizeInBytes(List.of("a/A.class", "a/é"))).isEqualTo(24 + (24 + 32) + (24 + 24) + 24);
+		assertThat(EntryNames.listSizeInBytes(List.of("a/€"))).isEqualTo(24 + (24 + 24) + 24);
+	}
+
+	@Test
+	void encoderRejectsUnsortedNames() {
+		EntryNames.Encoder encoder = new EntryNames.Encoder(2);
+		encoder.add(bytes("b"));
+		assertThatIllegalArgumentException().isThrownBy(() -> encoder.add(bytes("a")));
+	}
+
+	@Test
+	void cursorExposesNameBytes() {
+		EntryNames names = EntryNames.of(List.of("a/B.class", "a/A.class"));
+		EntryNames.NameCursor cursor = names.cursor();
+		assertThat(cursor.next()).isTrue();
+		assertThat(new String(cursor.bytes(), 0, cursor.length(), StandardCharsets.UTF_8)).isEqualTo("a/A.class");
+		assertThat(cursor.next()).isTrue();
+		assertThat(cursor.name()).isEqualTo("a/B.class");
+		assertThat(cursor.next()).isFalse();
+	}
+
+	private static List<String> sampleNames(int count) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			names.add("com/example/pkg%s/Type-%s.class".formatted(i % 10, i));
+		}
+		return names;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,70 @@
+package net.nicoll.deployment.diff;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressReporterTests {
+
+	@Test
+	void bytesReadCountsReadsOfCurrentThreadSinceStart() throws IOException {
+		ReadRateLimiter readRateLimiter = ReadRateLimiter.unlimited();
+		readRateLimiter.acquire(100);
+		ProgressReporter progressReporter = new ProgressReporter(Duration.ZERO);
+		try (progressReporter) {
+			progressReporter.start(1);
+			try (InputStream in = readRateLimiter.throttle(new ByteArrayInputStream(new byte[1000]))) {
+				in.readAllBytes();
+			}
+			readRateLimiter.acquire(24);
+			assertThat(progressReporter.bytesRead()).isEqualTo(1024);
+		}
+		readRateLimiter.acquire(50);
+		assertThat(progressReporter.bytesRead()).isEqualTo(1024);
+		assertThat(ReadRateLimiter.readCounter()).isNull();
+	}
+
+	@Test
+	void bytesReadDoesNotCountReadsOfConcurrentRuns() throws Exception {
+		ReadRateLimiter readRateLimiter = ReadRateLimiter.unlimited();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (ProgressReporter progressReporter = new ProgressReporter(Duration.ZERO)) {
+			progressReporter.start(1);
+			Future<Long> otherRun = executor.submit(() -> {
+				try (ProgressReporter otherReporter = new ProgressReporter(Duration.ZERO)) {
+					otherReporter.start(1);
+					readRateLimiter.acquire(500);
+					return otherReporter.bytesRead();
+				}
+			});
+			readRateLimiter.acquire(10);
+			assertThat(otherRun.get()).isEqualTo(500L);
+			assertThat(progressReporter.bytesRead()).isEqualTo(10);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void remoteProgressIsAdded() throws IOException {
+		ReadRateLimiter readRateLimiter = ReadRateLimiter.unlimited();
+		try (ProgressReporter progressReporter = new ProgressReporter(Duration.ZERO)) {
+			progressReporter.start(2);
+			progressReporter.archivesProcessed(2);
+			progressReporter.remoteProgress(4, 2048);
+			readRateLimiter.acquire(10);
+			assertThat(progressReporter.archives()).isEqualTo(6);
+			assertThat(progressReporter.bytesRead()).isEqualTo(2058);
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import net.nicoll.deployment.diff.ReleaseHistory.VersionPair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ReleaseHistoryTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void consecutivePairsOfVersions() {
+		assertThat(ReleaseHistory.consecutivePairs(List.of("1.0", "1.1", "2.0")))
+			.containsExactly(new VersionPair("1.0", "1.1"), new VersionPair("1.1", "2.0"));
+	}
+
+	@Test
+	void parseVersionPair() {
+		assertThat(VersionPair.parse("1.0:1.1")).isEqualTo(new VersionPair("1.0", "1.1"));
+		assertThatIllegalArgumentException().isThrownBy(() -> VersionPair.parse("1.0"))
+			.withMessageContaining("Invalid version pair '1.0'");
+	}
+
+	@Test
+	void diffAcrossThreeVersions() throws IOException {
+		TestArchives.module(this.tempDir, "core", "1.0", "com/example/One.class");
+		TestArchives.module(this.tempDir, "core", "1.1", "com/example/One.class", "com/example/Two.class");
+		Path core = TestArchives.module(this.tempDir, "core", "2.0", "com/example/Two.class");
+		TestArchives.archive(core.resolveSibling("core-2.0-sources.jar"), "com/example/Two.java");
+		TestArchives.module(this.tempDir, "extra", "1.1", "com/example/extra/Three.class");
+		TestArchives.module(this.tempDir, "extra", "2.0", "com/example/extra/Three.class");
+		List<String> timelines = diff(ReleaseHistory.consecutivePairs(List.of("1.0", "1.1", "2.0")));
+		assertThat(timelines).containsExactlyInAnyOrder(timeline("Release history of 'core':", "\t1.0 -> 1.1:",
+				"\t\tmain JAR added 'com/example/Two.class'",
+				"\t\tmain manifest 'Implementation-Title': 'core-1.0.jar' (1.0) vs. 'core-1.1.jar' (1.1)",
+				"\t1.1 -> 2.0:", "\t\tmain JAR removed 'com/example/One.class'",
+				"\t\tmain manifest 'Implementation-Title': 'core-1.1.jar' (1.1) vs. 'core-2.0.jar' (2.0)",
+				"\t\t'sources' JAR added"),
+				timeline("Release history of 'extra':", "\t1.0 -> 1.1: module added", "\t1.1 -> 2.0:",
+						"\t\tmain manifest 'Implementation-Title': 'extra-1.1.jar' (1.1) vs. 'extra-2.0.jar' (2.0)"));
+	}
+
+	@Test
+	void diffWithPairsSkippingVersions() throws IOException {
+		TestArchives.module(this.tempDir, "core", "1.0", "com/example/One.class");
+		TestArchives.module(this.tempDir, "core", "1.1", "com/example/Two.class");
+		TestArchives.module(this.tempDir, "core", "2.0", "com/example/One.class");
+		List<String> timelines = diff(List.of(new VersionPair("1.0", "2.0"), new VersionPair("2.0", "3.0")));
+		assertThat(timelines).containsExactly(timeline("Release history of 'core':", "\t1.0 -> 2.0:",
+				"\t\tmain manifest 'Implementation-Title': 'core-1.0.jar' (1.0) vs. 'core-2.0.jar' (2.0)",
+				"\t2.0 -> 3.0: module removed"));
+	}
+
+	private List<String> diff(List<VersionPair> pairs) throws IOException {
+		try (ModuleRepository repository = new DirectoryModuleRepository(this.tempDir,
+				TestArchives.groupDirectory(this.tempDir), TestArchives.GROUP_ID)) {
+			return new ReleaseHistory(repository, pairs).diff();
+		}
+	}
+
+	private static String timeline(String... lines) {
+		return String.join(System.lineSeparator(), lines);
+	}
+
+}
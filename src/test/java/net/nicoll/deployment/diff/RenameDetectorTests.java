@@ -0,0 +1,85 @@
+package net.nicoll.deployment.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import net.nicoll.deployment.diff.RenameDetector.Move;
+import net.nicoll.deployment.diff.RenameDetector.Moves;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenameDetectorTests {
+
+	@Test
+	void pairMatchesByFingerprint() {
+		Map<String, Object> fingerprints = Map.of("a/One.class", 1, "a/Two.class", 2, "b/One.class", 1,
+				"b/Three.class", 3);
+		Moves<String> moves = RenameDetector.pair(List.of("a/One.class", "a/Two.class"),
+				List.of("b/Three.class", "b/One.class"), fingerprints::get);
+		assertThat(moves.moved()).containsExactly(new Move<>("a/One.class", "b/One.class"));
+		assertThat(moves.remaining().onlyInLeft()).containsExactly("a/Two.class");
+		assertThat(moves.remaining().onlyInRight()).containsExactly("b/Three.class");
+	}
+
+	@Test
+	void pairUsesEachRightCandidateOnce() {
+		Moves<String> moves = RenameDetector.pair(List.of("a/1", "a/2", "a/3"), List.of("b/1", "b/2"),
+				name -> "same");
+		assertThat(moves.moved()).containsExactly(new Move<>("a/1", "b/1"), new Move<>("a/2", "b/2"));
+		assertThat(moves.remaining().onlyInLeft()).containsExactly("a/3");
+		assertThat(moves.remaining().onlyInRight()).isEmpty();
+	}
+
+	@Test
+	void pairKeepsEqualRightCandidatesThatAreNotPaired() {
+		Map<String, Object> fingerprints = Map.of("a/x", 1, "b/x", 1);
+		Moves<String> moves = RenameDetector.pair(List.of("a/x"), List.of("b/y", "b/x", "b/x"), fingerprints::get);
+		assertThat(moves.moved()).containsExactly(new Move<>("a/x", "b/x"));
+		assertThat(moves.remaining().onlyInRight()).containsExactly("b/y", "b/x");
+	}
+
+	@Test
+	void pairIgnoresMissingFingerprints() {
+		Moves<String> moves = RenameDetector.pair(List.of("a/x"), List.of("b/x"), name -> null);
+		assertThat(moves.moved()).isEmpty();
+		assertThat(moves.remaining().onlyInLeft()).containsExactly("a/x");
+		assertThat(moves.remaining().onlyInRight()).containsExactly("b/x");
+	}
+
+	@Test
+	void pairUsesSideSpecificFingerprints() {
+		Moves<String> moves = RenameDetector.pair(List.of("spring-xml"), List.of("spring-ws-xml"),
+				name -> name.replace("spring-", ""), name -> name.replace("spring-ws-", ""));
+		assertThat(moves.moved()).containsExactly(new Move<>("spring-xml", "spring-ws-xml"));
+	}
+
+	@Test
+	void pairLargeInputsPreservesOrder() {
+		List<String> left = new ArrayList<>();
+		List<String> right = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			left.add("left/" + i);
+			right.add("right/" + i);
+		}
+		Moves<String> moves = RenameDetector.pair(left, right, RenameDetectorTests::evenIndex);
+		assertThat(moves.moved()).hasSize(10_000);
+		assertThat(moves.remaining().onlyInRight()).hasSize(10_000);
+		assertThat(moves.remaining().onlyInRight().get(0)).isEqualTo("right/1");
+		assertThat(moves.remaining().onlyInLeft().get(0)).isEqualTo("left/1");
+	}
+
+	@Test
+	void describeGroupsMovesByDirectory() {
+		List<String> descriptions = RenameDetector.describe(List.of(new Move<>("a/One.class", "b/One.class"),
+				new Move<>("a/Two.class", "b/Two.class"), new Move<>("a/Old.class", "a/New.class")));
+		assertThat(descriptions).containsExactly("a/ -> b/ (2 entries)", "a/Old.class -> a/New.class");
+	}
+
+	private static Object evenIndex(String name) {
+		int index = Integer.parseInt(name.substring(name.indexOf('/') + 1));
+		return (index % 2 == 0) ? index : null;
+	}
+
+}
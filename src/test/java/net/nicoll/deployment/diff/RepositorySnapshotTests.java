@@ -0,0 +1,160 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.Dependency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class RepositorySnapshotTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void exportAndLoadRoundTrip() throws IOException {
+		TestRepository repository = repository("1.0");
+		Path target = this.tempDir.resolve("test.snapshot");
+		RepositorySnapshot.export(repository, "org.example", "1.0", target);
+		RepositorySnapshot snapshot = RepositorySnapshot.load(target);
+		assertThat(snapshot.groupId()).isEqualTo("org.example");
+		assertThat(snapshot.version()).isEqualTo("1.0");
+		assertThat(snapshot.modules()).containsExactly("core");
+		assertThat(snapshot.files("core", "1.0")).isEqualTo(repository.files("core", "1.0"));
+		assertThat(snapshot.files("unknown", "1.0")).isEmpty();
+		assertThat(snapshot.fingerprint("core", "1.0")).isEqualTo("core-fingerprint");
+		List<Dependency> dependencies = snapshot.dependencies("core", "1.0", List.of("compile"));
+		assertThat(dependencies).hasSize(1);
+		assertThat(dependencies.get(0).getArtifactId()).isEqualTo("commons");
+		assertThat(dependencies.get(0).isOptional()).isTrue();
+		assertThat(snapshot.dependencies("core", "1.0", List.of("test"))).isEmpty();
+	}
+
+	@Test
+	void exportKeepsIndexOfJars() throws IOException {
+		TestRepository repository = repository("1.0");
+		Path target = this.tempDir.resolve("test.snapshot");
+		RepositorySnapshot.export(repository, "org.example", "1.0", target);
+		ModuleIndex expected = repository.index("core", "1.0");
+		ModuleIndex index = RepositorySnapshot.load(target).index("core", "1.0");
+		assertThat(index.classifiers()).containsExactlyInAnyOrder("", "sources");
+		for (String classifier : List.of("", "sources")) {
+			assertThat(index.location(classifier)).isEqualTo(expected.location(classifier));
+			assertThat(index.jar(classifier)).isNull();
+			assertThat(index.size(classifier)).isEqualTo(expected.size(classifier));
+			assertThat(index.digest(classifier)).isEqualTo(expected.digest(classifier));
+			assertThat(index.manifest(classifier)).isEqualTo(expected.manifest(classifier));
+			assertThat(index.entries(classifier).toList()).isEqualTo(expected.entries(classifier).toList());
+			for (String entry : expected.entries(classifier)) {
+				assertThat(index.entryKey(classifier, entry)).isEqualTo(expected.entryKey(classifier, entry));
+			}
+		}
+		assertThat(index.entryKey("", "com/example/")).isNull();
+		assertThat(index.entryKey("", "com/example/Two.class")).isNotNull();
+	}
+
+	@Test
+	void exportKeepsSketchOfJars() throws IOException {
+		TestRepository repository = repository("1.0");
+		Path target = this.tempDir.resolve("test.snapshot");
+		RepositorySnapshot.export(repository, "org.example", "1.0", target);
+		ModuleIndex expected = repository.index("core", "1.0");
+		RepositorySnapshot snapshot = RepositorySnapshot.load(target);
+		for (String classifier : List.of("", "sources")) {
+			ArtifactSketch sketch = snapshot.index("core", "1.0").sketch(classifier, 0.000001);
+			assertThat(sketch.matches(expected.sketch(classifier, 0.000001))).isTrue();
+			assertThat(snapshot.index("core", "1.0").sketch(classifier, 0.000001)).isSameAs(sketch);
+		}
+		assertThat(snapshot.index("core", "1.0").sketch("", 0.000001)
+			.matches(expected.sketch("sources", 0.000001))).isFalse();
+	}
+
+	@Test
+	void loadReusesSnapshotUntilFileChanges() throws IOException {
+		Path target = this.tempDir.resolve("test.snapshot");
+		RepositorySnapshot.export(repository("1.0"), "org.example", "1.0", target);
+		RepositorySnapshot snapshot = RepositorySnapshot.load(target);
+		assertThat(RepositorySnapshot.load(target)).isSameAs(snapshot);
+		RepositorySnapshot.export(repository("1.0"), "org.example", "1.0", target);
+		Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+		assertThat(RepositorySnapshot.load(target)).isNotSameAs(snapshot);
+	}
+
+	@Test
+	void moduleOfAnotherVersionIsRejected() throws IOException {
+		Path target = this.tempDir.resolve("test.snapshot");
+		RepositorySnapshot.export(repository("1.0"), "org.example", "1.0", target);
+		RepositorySnapshot snapshot = RepositorySnapshot.load(target);
+		assertThatIllegalArgumentException().isThrownBy(() -> snapshot.files("core", "2.0"))
+			.withMessageContaining("is for version 1.0, not 2.0");
+	}
+
+	@Test
+	void loadRejectsOtherFile() throws IOException {
+		Path file = Files.writeString(this.tempDir.resolve("test.snapshot"), "not a snapshot");
+		assertThatIllegalStateException().isThrownBy(() -> RepositorySnapshot.load(file))
+			.withMessageContaining("is not a repository snapshot");
+	}
+
+	private TestRepository repository(String version) throws IOException {
+		Path repository = this.tempDir.resolve("repository");
+		Map<String, Path> jars = new LinkedHashMap<>();
+		Path jar = TestArchives.module(repository, "core", version, "com/example/", "com/example/One.class",
+				"com/example/Two.class");
+		jars.put("", jar);
+		jars.put("sources", TestArchives.jar(jar.resolveSibling("core-%s-sources.jar".formatted(version)),
+				"com/example/One.java"));
+		return new TestRepository(TestArchives.groupDirectory(repository), jars);
+	}
+
+	private record TestRepository(Path groupDirectory, Map<String, Path> jars) implements ModuleRepository {
+
+		@Override
+		public List<String> modules() {
+			return List.of("core", "empty");
+		}
+
+		@Override
+		public List<String> files(String module, String version) throws IOException {
+			if (!module.equals("core")) {
+				return List.of();
+			}
+			return PathUtils.toFileNames(
+					PathUtils.listFilesAndDirectoriesIn(this.groupDirectory.resolve(module).resolve(version)));
+		}
+
+		@Override
+		public ModuleIndex index(String module, String version) {
+			return new DirectoryModuleIndex(this.groupDirectory, this.jars);
+		}
+
+		@Override
+		public List<Dependency> dependencies(String module, String version, List<String> scopes) {
+			Dependency dependency = new Dependency();
+			dependency.setGroupId("org.example");
+			dependency.setArtifactId("commons");
+			dependency.setVersion("1.0");
+			dependency.setType("jar");
+			dependency.setScope("compile");
+			dependency.setOptional(true);
+			return List.of(dependency);
+		}
+
+		@Override
+		public String fingerprint(String module, String version) {
+			return "core-fingerprint";
+		}
+
+	}
+
+}
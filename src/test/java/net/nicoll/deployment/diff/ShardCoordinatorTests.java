@@ -0,0 +1,99 @@
+package net.nicoll.deployment.diff;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.nicoll.deployment.diff.DeploymentDiffer.ModuleReport;
+import net.nicoll.deployment.diff.ShardProtocol.IndexedReport;
+import net.nicoll.deployment.diff.ShardProtocol.Shard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ShardCoordinatorTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void diffSkipsHeartbeatsOfWorker() throws Exception {
+		int port;
+		try (ServerSocket serverSocket = new ServerSocket(0)) {
+			port = serverSocket.getLocalPort();
+		}
+		ShardCoordinator coordinator = new ShardCoordinator(List.of(), 0, port, 1, Duration.ofSeconds(10));
+		ProgressReporter progressReporter = new ProgressReporter(Duration.ZERO);
+		Future<List<ModuleReport>> reports = this.executor
+			.submit(() -> coordinator.diff(List.of(new Module("core")), progressReporter));
+		ModuleReport report = new ModuleReport("core", true, null, 1, List.of());
+		try (Socket socket = connect(port);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+			assertThat(in.readByte()).isEqualTo(ShardProtocol.SHARD);
+			Shard shard = ShardProtocol.readShard(in);
+			ShardProtocol.writeHeartbeat(out);
+			ShardProtocol.writeModule(out, new IndexedReport(0, report, 2, 1024));
+			ShardProtocol.writeHeartbeat(out);
+			ShardProtocol.writeDone(out, shard.id());
+			assertThat(in.readByte()).isEqualTo(ShardProtocol.STOP);
+		}
+		assertThat(reports.get(10, TimeUnit.SECONDS)).containsExactly(report);
+		assertThat(progressReporter.archives()).isEqualTo(2);
+	}
+
+	@Test
+	void shardTimeoutMustCoverHeartbeats() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new ShardCoordinator(List.of(), 1, 0, 1, ShardProtocol.HEARTBEAT_INTERVAL))
+			.withMessageContaining("Shard timeout must be at least 10s");
+	}
+
+	@Test
+	void jvmOptionsKeepCdsArchiveAndAot() {
+		List<String> options = ShardCoordinator.jvmOptions(List.of("-XX:SharedArchiveFile=/app/application.jsa",
+				"-Dspring.aot.enabled=true", "-Xmx2g"));
+		assertThat(options).containsExactly("-XX:SharedArchiveFile=/app/application.jsa",
+				"-Dspring.aot.enabled=true", "-Xmx2g");
+	}
+
+	@Test
+	void jvmOptionsSkipArchiveDumpAndDebugger() {
+		List<String> options = ShardCoordinator.jvmOptions(List.of("-XX:ArchiveClassesAtExit=/app/application.jsa",
+				"-agentlib:jdwp=transport=dt_socket,server=y,address=5005", "-Xmx2g"));
+		assertThat(options).containsExactly("-Xmx2g");
+	}
+
+	private static Socket connect(int port) throws IOException, InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (true) {
+			try {
+				return new Socket("localhost", port);
+			}
+			catch (ConnectException ex) {
+				if (System.nanoTime() > deadline) {
+					throw ex;
+				}
+				Thread.sleep(50);
+			}
+		}
+	}
+
+}
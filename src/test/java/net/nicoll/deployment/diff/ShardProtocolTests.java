@@ -0,0 +1,88 @@
+package net.nicoll.deployment.diff;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import net.nicoll.deployment.diff.DeploymentDiffer.ModuleReport;
+import net.nicoll.deployment.diff.ShardProtocol.IndexedReport;
+import net.nicoll.deployment.diff.ShardProtocol.Shard;
+import net.nicoll.deployment.diff.ShardProtocol.ShardModule;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardProtocolTests {
+
+	@Test
+	void shardRoundTrip() throws IOException {
+		Shard shard = new Shard(3, List.of(new ShardModule(0, "spring-ws-core", "spring-ws-core"),
+				new ShardModule(1, "spring-xml", "spring-ws-xml")), 2);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ShardProtocol.writeShard(new DataOutputStream(bytes), shard);
+		DataInputStream in = input(bytes);
+		assertThat(in.readByte()).isEqualTo(ShardProtocol.SHARD);
+		Shard read = ShardProtocol.readShard(in);
+		assertThat(read.id()).isEqualTo(3);
+		assertThat(read.modules()).isEqualTo(shard.modules());
+		assertThat(read.attempt()).isEqualTo(1);
+		assertThat(in.available()).isEqualTo(0);
+	}
+
+	@Test
+	void moduleRoundTrip() throws IOException {
+		String description = "Diff result for spring-ws-core:%n\tNo 'sources' JAR in Gradle".formatted();
+		ModuleReport report = new ModuleReport("spring-ws-core", false, description, 2,
+				List.of("Module 'spring-ws-core' in Maven has moved to 'spring-ws' in Gradle"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ShardProtocol.writeModule(new DataOutputStream(bytes), new IndexedReport(7, report, 4, 123456789L));
+		DataInputStream in = input(bytes);
+		assertThat(in.readByte()).isEqualTo(ShardProtocol.MODULE);
+		IndexedReport read = ShardProtocol.readModule(in);
+		assertThat(read.index()).isEqualTo(7);
+		assertThat(read.report()).isEqualTo(report);
+		assertThat(read.archives()).isEqualTo(4);
+		assertThat(read.bytes()).isEqualTo(123456789L);
+		assertThat(in.available()).isEqualTo(0);
+	}
+
+	@Test
+	void moduleWithoutDescriptionRoundTrip() throws IOException {
+		ModuleReport report = new ModuleReport("spring-xml", true, null, 0, List.of());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ShardProtocol.writeModule(new DataOutputStream(bytes), new IndexedReport(0, report, 0, 0));
+		DataInputStream in = input(bytes);
+		in.readByte();
+		assertThat(ShardProtocol.readModule(in).report()).isEqualTo(report);
+	}
+
+	@Test
+	void heartbeatDoneAndStop() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		ShardProtocol.writeHeartbeat(out);
+		ShardProtocol.writeDone(out, 5);
+		ShardProtocol.writeStop(out);
+		DataInputStream in = input(bytes);
+		assertThat(in.readByte()).isEqualTo(ShardProtocol.HEARTBEAT);
+		assertThat(in.readByte()).isEqualTo(ShardProtocol.DONE);
+		assertThat(in.readInt()).isEqualTo(5);
+		assertThat(in.readByte()).isEqualTo(ShardProtocol.STOP);
+		assertThat(in.available()).isEqualTo(0);
+	}
+
+	@Test
+	void retryIncrementsAttempt() {
+		Shard shard = new Shard(1, List.of(new ShardModule(0, "a", "a")), 1);
+		assertThat(shard.retry().attempt()).isEqualTo(2);
+		assertThat(shard.retry().modules()).isEqualTo(shard.modules());
+	}
+
+	private static DataInputStream input(ByteArrayOutputStream bytes) {
+		return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+}
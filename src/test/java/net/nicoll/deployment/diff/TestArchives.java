@@ -0,0 +1,90 @@
+package net.nicoll.deployment.diff;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Archives and Maven repository layouts for tests. Unless specified otherwise, the content of
+ * an entry is its name, and directory entries have no content.
+ */
+final class TestArchives {
+
+	static final String GROUP_ID = "org.example";
+
+	private TestArchives() {
+	}
+
+	static Path archive(Path file, String... entries) throws IOException {
+		return archive(file, contentIsName(entries));
+	}
+
+	static Path archive(Path file, Map<String, String> entries) throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+			write(out, entries);
+		}
+		return file;
+	}
+
+	/**
+	 * Write a JAR with a manifest whose {@code Implementation-Title} is the name of the file.
+	 */
+	static Path jar(Path file, String... entries) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue("Implementation-Title", file.getFileName().toString());
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(file), manifest)) {
+			write(out, contentIsName(entries));
+		}
+		return file;
+	}
+
+	/**
+	 * Write the POM and the main JAR of a module of {@value #GROUP_ID} in the specified
+	 * repository.
+	 * @return the main JAR
+	 */
+	static Path module(Path repository, String module, String version, String... entries) throws IOException {
+		Path versionDirectory = Files.createDirectories(groupDirectory(repository).resolve(module).resolve(version));
+		Files.writeString(versionDirectory.resolve("%s-%s.pom".formatted(module, version)), """
+				<project>
+					<modelVersion>4.0.0</modelVersion>
+					<groupId>%s</groupId>
+					<artifactId>%s</artifactId>
+					<version>%s</version>
+				</project>
+				""".formatted(GROUP_ID, module, version));
+		return jar(versionDirectory.resolve("%s-%s.jar".formatted(module, version)), entries);
+	}
+
+	static Path groupDirectory(Path repository) {
+		return repository.resolve(GROUP_ID.replace('.', '/'));
+	}
+
+	private static Map<String, String> contentIsName(String... entries) {
+		Map<String, String> contents = new LinkedHashMap<>();
+		for (String entry : entries) {
+			contents.put(entry, entry.endsWith("/") ? null : entry);
+		}
+		return contents;
+	}
+
+	private static void write(ZipOutputStream out, Map<String, String> entries) throws IOException {
+		for (Map.Entry<String, String> entry : entries.entrySet()) {
+			out.putNextEntry(new ZipEntry(entry.getKey()));
+			if (entry.getValue() != null) {
+				out.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+			}
+			out.closeEntry();
+		}
+	}
+
+}